@@ -0,0 +1,76 @@
+package com.neuralvault.api.filter;
+
+import com.neuralvault.api.service.ClientAddress;
+import com.neuralvault.api.service.ClientStateTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolucion de la IP y consumo del bucket por IP, el trabajo de RateLimitFilter por
+ * peticion. "rotating" simula un escaneo con IPs distintas que llena la tabla y obliga
+ * a expulsar entradas; se ejecuta con varios hilos para medir la contencion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RateLimitBenchmark {
+
+    private static final int ADDRESSES = 1 << 16;
+
+    @Param({"hot-ipv4", "hot-ipv6", "rotating"})
+    private String traffic;
+
+    private ClientStateTable clientStateTable;
+    private ClientStateTable.Limit limit;
+    private String[] remoteAddrs;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/recommend");
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        // Tabla mas pequena que el numero de IPs rotativas: mide tambien la expulsion
+        clientStateTable = new ClientStateTable(ADDRESSES / 4, 30);
+        // Bucket que nunca se agota: se mide el coste de la consulta, no el rechazo
+        limit = new ClientStateTable.Limit(Integer.MAX_VALUE, Integer.MAX_VALUE, 1);
+        remoteAddrs = new String[ADDRESSES];
+        Random random = new Random(7);
+        for (int i = 0; i < ADDRESSES; i++) {
+            remoteAddrs[i] = switch (traffic) {
+                case "hot-ipv4" -> "203.0.113.7";
+                case "hot-ipv6" -> "2001:db8:85a3::8a2e:370:7334";
+                default -> random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256);
+            };
+        }
+    }
+
+    @Benchmark
+    public ClientStateTable.Consumption resolveAndConsume(ThreadState state) {
+        MockHttpServletRequest request = state.request;
+        request.clearAttributes();
+        request.setRemoteAddr(remoteAddrs[state.next++ & (ADDRESSES - 1)]);
+        ClientAddress client = ClientIpResolver.resolve(request);
+        return clientStateTable.tryConsume(client, 100, limit);
+    }
+}
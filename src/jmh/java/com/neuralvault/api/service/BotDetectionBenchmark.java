@@ -0,0 +1,68 @@
+package com.neuralvault.api.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Huella de la peticion en SecurityFilter. Se borran los atributos en cada operacion
+ * para medir el analisis y no la huella ya guardada en la peticion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BotDetectionBenchmark {
+
+    @Param({"browser", "curl", "scanner"})
+    private String client;
+
+    private BotDetectionService botDetectionService;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        botDetectionService = new BotDetectionService();
+        request = new MockHttpServletRequest("POST", "/api/recommend");
+        switch (client) {
+            case "browser" -> {
+                request.addHeader("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+                        + "(KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36");
+                request.addHeader("Accept", "application/json, text/plain, */*");
+                request.addHeader("Accept-Language", "es-ES,es;q=0.9,en;q=0.8");
+                request.addHeader("Accept-Encoding", "gzip, deflate, br");
+                request.addHeader("Referer", "https://neuralvault.example/");
+            }
+            case "curl" -> {
+                request.addHeader("User-Agent", "curl/8.4.0");
+                request.addHeader("Accept", "*/*");
+            }
+            default -> {
+                request.addHeader("User-Agent", "sqlmap/1.7.2#stable (https://sqlmap.org)");
+                request.addHeader("Accept", "*/*");
+                request.addHeader("Accept-Encoding", "gzip,deflate");
+            }
+        }
+        request.addHeader("Content-Type", "application/json");
+        request.addHeader("X-Forwarded-For", "203.0.113.7, 10.0.0.1");
+    }
+
+    @Benchmark
+    public BotDetectionService.RequestFingerprint analyzeRequest() {
+        request.clearAttributes();
+        return botDetectionService.analyzeRequest(request);
+    }
+}
@@ -0,0 +1,51 @@
+package com.neuralvault.api.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construccion del prompt de una recomendacion (preseleccion BM25 y texto) con el
+ * catalogo actual (24 herramientas) y con uno grande.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptBuilderBenchmark {
+
+    @Param({"24", "2000"})
+    private int catalogSize;
+
+    private RecommendationPromptBuilder promptBuilder;
+    private CatalogSnapshot catalog;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        promptBuilder = new RecommendationPromptBuilder();
+        // Mismos valores por defecto que application.properties
+        ReflectionTestUtils.setField(promptBuilder, "topK", 20);
+        ReflectionTestUtils.setField(promptBuilder, "fallbackMaxTools", 100);
+        catalog = BenchmarkData.catalog(catalogSize);
+    }
+
+    @Benchmark
+    public String build() {
+        String query = BenchmarkData.QUERIES[next++ & (BenchmarkData.QUERIES.length - 1)];
+        return promptBuilder.build(catalog, query);
+    }
+}
@@ -0,0 +1,49 @@
+package com.neuralvault.api.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sanitizado de la consulta en /api/recommend. Las entradas "adversarial-N" repiten
+ * prefijos de patrones hasta N caracteres: el tiempo por operacion debe crecer de forma lineal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptSanitizerBenchmark {
+
+    @Param({"realistic", "injection", "adversarial-500", "adversarial-4000", "adversarial-16000"})
+    private String input;
+
+    private PromptSanitizer sanitizer;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        sanitizer = new PromptSanitizer();
+        text = switch (input) {
+            case "realistic" -> BenchmarkData.QUERIES[0];
+            case "injection" -> BenchmarkData.INJECTION;
+            default -> BenchmarkData.adversarial(Integer.parseInt(input.substring(input.indexOf('-') + 1)));
+        };
+    }
+
+    @Benchmark
+    public SanitizedPrompt sanitize() {
+        return sanitizer.sanitize(text);
+    }
+}
@@ -0,0 +1,76 @@
+package com.neuralvault.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.neuralvault.api.entity.AiTool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consulta al cache de recomendaciones tal como la hace RecommendationService: clave
+ * canonica de la consulta, lectura en Caffeine (configurado como en CacheConfig) y
+ * validacion contra el catalogo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecommendationCacheBenchmark {
+
+    private RecommendationKeyGenerator keyGenerator;
+    private Cache<Object, Object> cache;
+    private CatalogSnapshot catalog;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        keyGenerator = new RecommendationKeyGenerator(new QueryCanonicalizer(""), 1440, 64);
+        cache = Caffeine.newBuilder()
+                .maximumWeight(64L * 1024 * 1024)
+                .weigher(new RecommendationWeigher())
+                .expireAfter(new RecommendationExpiry(
+                        Duration.ofMinutes(1440), Duration.ofMinutes(360),
+                        Duration.ofSeconds(30), Duration.ofSeconds(300), 0.2))
+                .recordStats()
+                .build();
+        catalog = BenchmarkData.catalog(24);
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < BenchmarkData.QUERIES.length; i++) {
+            AiTool tool = catalog.get(i);
+            cache.put(keyGenerator.keyFor(BenchmarkData.QUERIES[i]), CachedRecommendation.hit(tool, catalog.version(), now));
+        }
+    }
+
+    @Benchmark
+    public Optional<AiTool> hit() {
+        return lookup(BenchmarkData.QUERIES[next++ & (BenchmarkData.QUERIES.length - 1)]);
+    }
+
+    @Benchmark
+    public Optional<AiTool> miss() {
+        return lookup("consulta que nunca se ha hecho " + (next++ & 1023));
+    }
+
+    private Optional<AiTool> lookup(String query) {
+        Object value = cache.getIfPresent(keyGenerator.keyFor(query));
+        if (value instanceof CachedRecommendation cached && cached.isValidFor(catalog)) {
+            return cached.resolve(catalog);
+        }
+        return Optional.empty();
+    }
+}
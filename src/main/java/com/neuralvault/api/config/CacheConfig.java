@@ -1,18 +1,44 @@
 package com.neuralvault.api.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.neuralvault.api.service.RecommendationExpiry;
+import com.neuralvault.api.service.RecommendationWeigher;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
 
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    // Retention, not freshness: entries past recommendation.cache.hard-ttl-minutes are
+    // kept this long so they can still be served while Gemini is unavailable
+    @Value("${cache.ttl.minutes:1440}")
+    private long retentionMinutes;
+
+    // Memory bound: entries hold a 128-bit key and a tool id, roughly 160 bytes each
+    @Value("${cache.max-weight-mb:64}")
+    private long maxWeightMb;
+
+    // Gemini answered that no tool fits: definitive, so it is kept long
+    @Value("${recommendation.cache.no-match-ttl-minutes:360}")
+    private long noMatchTtlMinutes;
+
+    // Failures are only cached briefly, and never replace a valid answer
+    @Value("${recommendation.cache.error-ttl-seconds:30}")
+    private long errorTtlSeconds;
+
+    @Value("${recommendation.cache.budget-exhausted-ttl-seconds:300}")
+    private long budgetExhaustedTtlSeconds;
+
+    @Value("${recommendation.cache.error-ttl-jitter:0.2}")
+    private double errorTtlJitter;
+
     @Bean
     public CacheManager cacheManager() {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager("recommendations");
@@ -22,8 +48,14 @@ public class CacheConfig {
 
     private Caffeine<Object, Object> caffeineConfig() {
         return Caffeine.newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(30, TimeUnit.MINUTES)
+                .maximumWeight(maxWeightMb * 1024 * 1024)
+                .weigher(new RecommendationWeigher())
+                .expireAfter(new RecommendationExpiry(
+                        Duration.ofMinutes(retentionMinutes),
+                        Duration.ofMinutes(noMatchTtlMinutes),
+                        Duration.ofSeconds(errorTtlSeconds),
+                        Duration.ofSeconds(budgetExhaustedTtlSeconds),
+                        errorTtlJitter))
                 .recordStats();
     }
 }
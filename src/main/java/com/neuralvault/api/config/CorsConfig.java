@@ -18,6 +18,7 @@ public class CorsConfig implements WebMvcConfigurer {
                 )
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders("X-Recommendation-Freshness")
                 .allowCredentials(true)
                 .maxAge(3600);
     }
@@ -4,6 +4,7 @@ import com.neuralvault.api.config.seeder.AgentSeeder;
 import com.neuralvault.api.config.seeder.GeneralToolSeeder;
 import com.neuralvault.api.config.seeder.IdeSeeder;
 import com.neuralvault.api.repository.AiToolRepository;
+import com.neuralvault.api.service.CatalogService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
@@ -18,6 +19,7 @@ public class DataSeeder implements CommandLineRunner {
     private final GeneralToolSeeder generalToolSeeder;
     private final AgentSeeder agentSeeder;
     private final IdeSeeder ideSeeder;
+    private final CatalogService catalogService;
 
     @Override
     public void run(String... args) {
@@ -34,5 +36,8 @@ public class DataSeeder implements CommandLineRunner {
         } else {
             log.info("Database already contains {} tools, skipping seeding", aiToolRepository.count());
         }
+
+        // Cargar el snapshot en memoria antes de recibir trafico
+        catalogService.refresh();
     }
 }
@@ -0,0 +1,29 @@
+package com.neuralvault.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class GeminiExecutorConfig {
+
+    @Value("${gemini.executor.threads:8}")
+    private int threads;
+
+    @Value("${gemini.executor.queue-capacity:32}")
+    private int queueCapacity;
+
+    // Pool acotado y cola limitada: si se llena se rechaza la tarea (503) en vez de acumular hilos
+    @Bean
+    public ThreadPoolTaskExecutor geminiExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("gemini-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,18 +1,27 @@
 package com.neuralvault.api.config;
 
+import com.neuralvault.api.service.ClientStateTable;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Limites de /api/recommend en capas: por IP segun el tramo de sospecha de la huella
+ * de la peticion, y uno global que protege el presupuesto diario de Gemini.
+ * <p>
+ * Los buckets por IP cuentan en unidades de {@value #COST_UNITS} por peticion, para que
+ * una respuesta cacheada pueda costar una fraccion de una llamada real.
+ */
 @Configuration
 public class RateLimitConfig {
 
+    public static final int COST_UNITS = 100;
+
     @Value("${ratelimit.capacity:10}")
     private int capacity;
 
@@ -22,20 +31,47 @@ public class RateLimitConfig {
     @Value("${ratelimit.refill.duration:1}")
     private int refillDurationMinutes;
 
-    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    @Value("${ratelimit.suspicious.capacity:3}")
+    private int suspiciousCapacity;
 
-    @Bean
-    public ConcurrentHashMap<String, Bucket> buckets() {
-        return buckets;
+    @Value("${ratelimit.suspicious.refill.tokens:3}")
+    private int suspiciousRefillTokens;
+
+    @Value("${ratelimit.cached-cost-percent:10}")
+    private int cachedCostPercent;
+
+    @Value("${ratelimit.global.capacity:50}")
+    private int globalCapacity;
+
+    @Value("${ratelimit.global.daily.max:1000}")
+    private int globalDailyMax;
+
+    // El estado de cada bucket vive en ClientStateTable; aqui solo los limites
+    public ClientStateTable.Limit perIpLimit(boolean suspicious) {
+        long interval = TimeUnit.MINUTES.toMillis(refillDurationMinutes);
+        return suspicious
+                ? new ClientStateTable.Limit(suspiciousCapacity * COST_UNITS, suspiciousRefillTokens * COST_UNITS, interval)
+                : new ClientStateTable.Limit(capacity * COST_UNITS, refillTokens * COST_UNITS, interval);
     }
 
-    public Bucket resolveBucket(String key) {
-        return buckets.computeIfAbsent(key, k -> createNewBucket());
+    /**
+     * Coste en unidades de una peticion: completa si llega a Gemini, reducido si se
+     * responde desde el cache.
+     */
+    public int cost(boolean cached) {
+        return cached ? cachedCostPercent * COST_UNITS / 100 : COST_UNITS;
     }
 
-    private Bucket createNewBucket() {
-        Bandwidth limit = Bandwidth.classic(capacity,
-            Refill.intervally(refillTokens, Duration.ofMinutes(refillDurationMinutes)));
+    /**
+     * Bucket global para las peticiones que llegan a Gemini: permite rafagas de
+     * {@code globalCapacity} y se recarga al ritmo sostenido del presupuesto diario.
+     */
+    @Bean
+    public Bucket globalRecommendationBucket() {
+        Bandwidth limit = Bandwidth.builder()
+                .capacity(globalCapacity)
+                .refillGreedy(globalDailyMax, Duration.ofDays(1))
+                .build();
         return Bucket.builder()
                 .addLimit(limit)
                 .build();
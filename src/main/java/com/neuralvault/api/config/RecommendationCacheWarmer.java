@@ -0,0 +1,119 @@
+package com.neuralvault.api.config;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.neuralvault.api.entity.RecommendationCacheEntry;
+import com.neuralvault.api.service.CatalogService;
+import com.neuralvault.api.service.CatalogSnapshot;
+import com.neuralvault.api.service.PersistentRecommendationStore;
+import com.neuralvault.api.service.QueryKey;
+import com.neuralvault.api.service.RecommendationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Precarga el cache de recomendaciones con las consultas mas populares ya
+ * persistidas. Corre en segundo plano tras el arranque y nunca llama a Gemini.
+ * Las filas entran con la misma regla de antiguedad que la lectura persistente: se
+ * sirven al momento y el primer uso de las calculadas hace mas del TTL blando las refresca.
+ */
+@Slf4j
+@Component
+public class RecommendationCacheWarmer {
+
+    private final PersistentRecommendationStore persistentStore;
+    private final RecommendationService recommendationService;
+    private final CatalogService catalogService;
+    private final CacheManager cacheManager;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${recommendation.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${recommendation.warmup.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${recommendation.warmup.max-duration-ms:10000}")
+    private long maxDurationMs;
+
+    // Ventana tras el arranque sobre la que se informa el hit ratio
+    @Value("${recommendation.warmup.report-after-minutes:15}")
+    private long reportAfterMinutes;
+
+    public RecommendationCacheWarmer(PersistentRecommendationStore persistentStore,
+                                     RecommendationService recommendationService,
+                                     CatalogService catalogService,
+                                     CacheManager cacheManager,
+                                     TaskScheduler taskScheduler) {
+        this.persistentStore = persistentStore;
+        this.recommendationService = recommendationService;
+        this.catalogService = catalogService;
+        this.cacheManager = cacheManager;
+        this.taskScheduler = taskScheduler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        CacheStats baseline = cacheStats();
+        if (enabled) {
+            Thread warmer = new Thread(this::warmUp, "cache-warmer");
+            warmer.setDaemon(true);
+            warmer.start();
+        }
+        taskScheduler.schedule(() -> reportEarlyHitRatio(baseline),
+                Instant.now().plus(Duration.ofMinutes(reportAfterMinutes)));
+    }
+
+    private void warmUp() {
+        long start = System.currentTimeMillis();
+        long deadline = start + maxDurationMs;
+        int loaded = 0;
+
+        try {
+            CatalogSnapshot catalog = catalogService.current();
+            List<RecommendationCacheEntry> popular = persistentStore.findMostPopular(maxEntries);
+
+            for (RecommendationCacheEntry entry : popular) {
+                if (System.currentTimeMillis() > deadline) {
+                    log.warn("Cache warm-up stopped after {}ms time budget", maxDurationMs);
+                    break;
+                }
+                var key = QueryKey.parse(entry.getCacheKey());
+                var tool = persistentStore.resolve(entry, catalog);
+                if (key.isPresent() && tool.isPresent()) {
+                    recommendationService.warm(key.get(), tool.get(), catalog.version(),
+                            entry.getCreatedAt().toEpochMilli());
+                    loaded++;
+                }
+            }
+            log.info("Cache warm-up loaded {} popular recommendations in {}ms",
+                    loaded, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("Cache warm-up failed after {}ms: {}", System.currentTimeMillis() - start, e.getMessage());
+        }
+    }
+
+    private void reportEarlyHitRatio(CacheStats baseline) {
+        CacheStats window = cacheStats().minus(baseline);
+        log.info("Recommendation cache hit ratio in the first {} minutes after start: {}% ({} lookups)",
+                reportAfterMinutes,
+                window.requestCount() == 0 ? 0 : Math.round(window.hitRate() * 100),
+                window.requestCount());
+    }
+
+    private CacheStats cacheStats() {
+        if (cacheManager.getCache("recommendations") instanceof CaffeineCache cache) {
+            return cache.getNativeCache().stats();
+        }
+        return CacheStats.empty();
+    }
+}
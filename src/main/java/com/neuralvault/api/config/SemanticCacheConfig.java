@@ -0,0 +1,20 @@
+package com.neuralvault.api.config;
+
+import com.neuralvault.api.search.EmbeddingProvider;
+import com.neuralvault.api.search.HashedNgramEmbeddingProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SemanticCacheConfig {
+
+    // Implementacion local por defecto; otro bean EmbeddingProvider la reemplaza
+    @Bean
+    @ConditionalOnMissingBean(EmbeddingProvider.class)
+    public EmbeddingProvider embeddingProvider(
+            @Value("${recommendation.semantic.dimensions:128}") int dimensions) {
+        return new HashedNgramEmbeddingProvider(dimensions);
+    }
+}
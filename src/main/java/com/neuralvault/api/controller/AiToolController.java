@@ -1,16 +1,31 @@
 package com.neuralvault.api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neuralvault.api.dto.AiToolResponse;
 import com.neuralvault.api.dto.RecommendationRequest;
+import com.neuralvault.api.dto.ToolFilterResult;
+import com.neuralvault.api.dto.ToolSuggestion;
 import com.neuralvault.api.entity.AiTool;
-import com.neuralvault.api.repository.AiToolRepository;
+import com.neuralvault.api.service.CatalogQueryService;
+import com.neuralvault.api.service.CatalogResponseCache;
+import com.neuralvault.api.service.CatalogService;
 import com.neuralvault.api.service.RecommendationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStream;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api")
@@ -18,37 +33,165 @@ import java.util.Optional;
 @CrossOrigin(origins = "http://localhost:4200")
 public class AiToolController {
 
-    private final AiToolRepository aiToolRepository;
+    private static final String FRESHNESS_HEADER = "X-Recommendation-Freshness";
+    private static final String NDJSON = "application/x-ndjson";
+
+    // Siempre se revalida; con el ETag la respuesta habitual es un 304 sin cuerpo
+    private static final CacheControl CATALOG_CACHE_CONTROL = CacheControl.noCache().cachePublic();
+
+    private final CatalogResponseCache responseCache;
+    private final CatalogQueryService catalogQueryService;
+    private final CatalogService catalogService;
+    private final ObjectMapper objectMapper;
     private final RecommendationService recommendationService;
 
+    @Value("${catalog.export.flush-every:100}")
+    private int exportFlushEvery;
+
+    // Sin parametros: cuerpo precalculado por version del catalogo, solo se copian bytes.
+    // Con cursor, limit o fields: pagina por clave con los campos pedidos.
     @GetMapping("/tools")
-    public ResponseEntity<List<AiTool>> getAllTools() {
-        return ResponseEntity.ok(aiToolRepository.findAll());
+    public ResponseEntity<?> getAllTools(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (cursor == null && limit == null && fields == null) {
+            return precomputed(responseCache.all(), ifNoneMatch, acceptEncoding);
+        }
+        return ResponseEntity.ok(catalogQueryService.page(cursor, limit, fields));
+    }
+
+    @GetMapping("/tools/search")
+    public ResponseEntity<List<ToolSuggestion>> searchTools(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(catalogQueryService.search(q, limit));
+    }
+
+    @GetMapping("/tools/filter")
+    public ResponseEntity<ToolFilterResult> filterTools(
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> tags,
+            @RequestParam(required = false) String tagMode,
+            @RequestParam(required = false) List<String> pricing,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(catalogQueryService.filter(category, tags, tagMode, pricing, cursor, limit, fields));
+    }
+
+    /**
+     * Exporta el catalogo completo en NDJSON (una herramienta por linea) desde el snapshot,
+     * escribiendo y vaciando por tramos: la memoria no depende del tamano del catalogo.
+     * <p>
+     * El cuerpo se escribe de forma asincrona y queda sujeto a
+     * {@code spring.mvc.async.request-timeout}: un cliente que tarde mas en leerlo recibe
+     * la exportacion cortada.
+     */
+    @GetMapping(value = "/tools/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportTools(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        List<AiTool> tools = catalogService.current().tools();
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        StreamingResponseBody body = out -> {
+            // syncFlush: cada flush entrega al cliente lo comprimido hasta ese momento.
+            // Cerrar el envoltorio termina el gzip y libera el Deflater nativo aunque falle la
+            // escritura; la respuesta en si la cierra Spring
+            try (OutputStream stream = gzip
+                    ? new GZIPOutputStream(StreamUtils.nonClosing(out), 8192, true)
+                    : StreamUtils.nonClosing(out)) {
+                int written = 0;
+                for (AiTool tool : tools) {
+                    stream.write(objectMapper.writeValueAsBytes(AiToolResponse.from(tool)));
+                    stream.write('\n');
+                    if (++written % exportFlushEvery == 0) {
+                        stream.flush();
+                    }
+                }
+            }
+            out.flush();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
     }
 
     @GetMapping("/tools/{id}")
-    public ResponseEntity<AiTool> getToolById(@PathVariable String id) {
-        return aiToolRepository.findById(id)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<byte[]> getToolById(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return responseCache.byId(id)
+                .map(body -> precomputed(body, ifNoneMatch, acceptEncoding))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/tools/category/{category}")
-    public ResponseEntity<List<AiTool>> getToolsByCategory(@PathVariable String category) {
+    public ResponseEntity<byte[]> getToolsByCategory(
+            @PathVariable String category,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
             AiTool.Category cat = AiTool.Category.valueOf(category.toUpperCase());
-            return ResponseEntity.ok(aiToolRepository.findByCategory(cat));
+            return precomputed(responseCache.byCategory(cat), ifNoneMatch, acceptEncoding);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @PostMapping("/recommend")
-    public ResponseEntity<AiTool> recommendTool(@Valid @RequestBody RecommendationRequest request) {
-        Optional<AiTool> recommendation = recommendationService.recommend(request.query());
-        
-        return recommendation
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public CompletableFuture<ResponseEntity<AiToolResponse>> recommendTool(@Valid @RequestBody RecommendationRequest request) {
+        return recommendationService.recommend(request.query())
+                .thenApply(recommendation -> {
+                    String freshness = recommendation.freshness().headerValue();
+                    return recommendation.tool()
+                            .map(tool -> ResponseEntity.ok().header(FRESHNESS_HEADER, freshness).body(AiToolResponse.from(tool)))
+                            .orElse(ResponseEntity.notFound().header(FRESHNESS_HEADER, freshness).build());
+                });
+    }
+
+    // ETag fuerte por codificacion; 304 si el cliente ya tiene cualquiera de las variantes
+    private static ResponseEntity<byte[]> precomputed(CatalogResponseCache.Body body, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? body.gzipEtag() : body.etag();
+
+        if (body.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CATALOG_CACHE_CONTROL)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(CATALOG_CACHE_CONTROL)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,40 @@
+package com.neuralvault.api.dto;
+
+import com.neuralvault.api.entity.AiTool;
+
+import java.util.List;
+
+/**
+ * Modelo de lectura de una herramienta. Mismo JSON que la entidad, pero desacoplado
+ * de JPA: serializarlo nunca dispara cargas perezosas.
+ */
+public record AiToolResponse(
+    String id,
+    String name,
+    String specialty,
+    String description,
+    String pricing,
+    String url,
+    String icon,
+    AiTool.Category category,
+    List<String> tags
+) {
+
+    public static AiToolResponse from(AiTool tool) {
+        return new AiToolResponse(
+            tool.getId(),
+            tool.getName(),
+            tool.getSpecialty(),
+            tool.getDescription(),
+            tool.getPricing(),
+            tool.getUrl(),
+            tool.getIcon(),
+            tool.getCategory(),
+            tool.getTags()
+        );
+    }
+
+    public static List<AiToolResponse> from(List<AiTool> tools) {
+        return tools.stream().map(AiToolResponse::from).toList();
+    }
+}
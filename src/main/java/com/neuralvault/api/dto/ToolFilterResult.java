@@ -0,0 +1,16 @@
+package com.neuralvault.api.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado del filtrado por facetas: total de coincidencias, la pagina pedida y los
+ * recuentos por dimension ("category", "pricing", "tags"). {@code nextCursor} es
+ * {@code null} en la ultima pagina.
+ */
+public record ToolFilterResult(
+    int total,
+    List<Map<String, Object>> items,
+    String nextCursor,
+    Map<String, Map<String, Integer>> facets
+) {}
@@ -0,0 +1,12 @@
+package com.neuralvault.api.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pagina de herramientas. {@code nextCursor} es {@code null} en la ultima pagina.
+ */
+public record ToolPage(
+    List<Map<String, Object>> items,
+    String nextCursor
+) {}
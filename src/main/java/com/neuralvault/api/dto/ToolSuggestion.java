@@ -0,0 +1,18 @@
+package com.neuralvault.api.dto;
+
+import com.neuralvault.api.entity.AiTool;
+
+/**
+ * Resultado ligero de autocompletado: lo justo para pintar la sugerencia.
+ */
+public record ToolSuggestion(
+    String id,
+    String name,
+    String icon,
+    AiTool.Category category
+) {
+
+    public static ToolSuggestion from(AiTool tool) {
+        return new ToolSuggestion(tool.getId(), tool.getName(), tool.getIcon(), tool.getCategory());
+    }
+}
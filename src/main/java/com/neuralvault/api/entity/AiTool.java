@@ -9,7 +9,8 @@ import lombok.NoArgsConstructor;
 import java.util.List;
 
 @Entity
-@Table(name = "ai_tool")
+@Table(name = "ai_tool", indexes = @Index(name = "idx_ai_tool_category", columnList = "category"))
+@EntityListeners(AiToolChangeListener.class)
 @Data
 @Builder
 @NoArgsConstructor
@@ -43,7 +44,8 @@ public class AiTool {
     private Category category;
     
     @ElementCollection
-    @CollectionTable(name = "ai_tool_tags", joinColumns = @JoinColumn(name = "tool_id"))
+    @CollectionTable(name = "ai_tool_tags", joinColumns = @JoinColumn(name = "tool_id"),
+            indexes = @Index(name = "idx_ai_tool_tags_tool_id", columnList = "tool_id"))
     @Column(name = "tag")
     private List<String> tags;
     
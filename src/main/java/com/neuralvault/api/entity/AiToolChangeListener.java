@@ -0,0 +1,25 @@
+package com.neuralvault.api.entity;
+
+import com.neuralvault.api.event.CatalogChangedEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AiToolChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AiToolChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(AiTool tool) {
+        eventPublisher.publishEvent(new CatalogChangedEvent(tool.getId()));
+    }
+}
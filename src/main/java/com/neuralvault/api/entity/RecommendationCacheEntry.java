@@ -0,0 +1,53 @@
+package com.neuralvault.api.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Resultado de recomendacion persistido (segundo nivel de cache) para que
+ * sobreviva a reinicios y redeploys.
+ */
+@Entity
+@Table(name = "recommendation_cache", indexes = @Index(name = "idx_recommendation_cache_expires", columnList = "expiresAt"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationCacheEntry {
+
+    // Hash de 128 bits de la consulta canonica, en hexadecimal (QueryKey)
+    @Id
+    @Column(length = 32)
+    private String cacheKey;
+
+    // Huella del catalogo completo con el que se calculo; solo informativa, la validez
+    // la decide toolFingerprint. Conserva la columna existente para no romper tablas ya creadas
+    @Column(name = "catalog_version", nullable = false)
+    private long catalogFingerprint;
+
+    @Column(nullable = false)
+    private String toolId;
+
+    // Huella de la herramienta devuelta: el resultado vale mientras ella no cambie
+    private Long toolFingerprint;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    // Veces que se sirvio la consulta; ordena el precalentamiento al arrancar.
+    // Solo lo cambia incrementHits: volver a guardar la fila no reinicia el contador
+    @Column(columnDefinition = "bigint default 0 not null", updatable = false)
+    private long hitCount;
+}
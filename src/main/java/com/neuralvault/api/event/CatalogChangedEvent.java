@@ -0,0 +1,6 @@
+package com.neuralvault.api.event;
+
+/**
+ * Se publica cuando una herramienta del catalogo se crea, modifica o elimina.
+ */
+public record CatalogChangedEvent(String toolId) {}
@@ -0,0 +1,10 @@
+package com.neuralvault.api.event;
+
+import com.neuralvault.api.service.CatalogSnapshot;
+
+/**
+ * Publicado tras reemplazar el snapshot del catalogo por una version con cambios.
+ *
+ * @param previous snapshot reemplazado, o {@code null} en la primera carga
+ */
+public record CatalogRefreshedEvent(CatalogSnapshot previous, CatalogSnapshot current) {}
@@ -0,0 +1,8 @@
+package com.neuralvault.api.exception;
+
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -4,18 +4,27 @@ import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
-import org.springframework.util.StreamUtils;
 
 import java.io.*;
 
 public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
 
-    private byte[] cachedBody;
+    private final byte[] cachedBody;
+    private final boolean tooLarge;
 
-    public CachedBodyHttpServletRequest(HttpServletRequest request) throws IOException {
+    /**
+     * Lee como mucho {@code maxBytes + 1} bytes, tambien con cuerpos chunked que no
+     * declaran longitud. Si el cuerpo es mayor, {@link #isTooLarge()} y no se guarda.
+     */
+    public CachedBodyHttpServletRequest(HttpServletRequest request, int maxBytes) throws IOException {
         super(request);
-        InputStream requestInputStream = request.getInputStream();
-        this.cachedBody = StreamUtils.copyToByteArray(requestInputStream);
+        byte[] body = request.getInputStream().readNBytes(maxBytes + 1);
+        this.tooLarge = body.length > maxBytes;
+        this.cachedBody = tooLarge ? new byte[0] : body;
+    }
+
+    public boolean isTooLarge() {
+        return tooLarge;
     }
 
     @Override
@@ -0,0 +1,34 @@
+package com.neuralvault.api.filter;
+
+import com.neuralvault.api.service.ClientAddress;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * IP del cliente, resuelta una sola vez por peticion y compartida entre filtros como
+ * atributo de la peticion.
+ * <p>
+ * Solo se usa {@code getRemoteAddr()}: las cabeceras {@code X-Forwarded-For} las aplica
+ * Tomcat ({@code server.forward-headers-strategy=native}) y unicamente si la conexion
+ * viene de un proxy de confianza ({@code server.tomcat.remoteip.internal-proxies}). Leer la
+ * cabecera aqui permitiria a cualquiera hacerse pasar por otra IP: bloquearla o esquivar
+ * el limite por IP rotando el valor.
+ */
+public final class ClientIpResolver {
+
+    private static final String ATTRIBUTE = ClientIpResolver.class.getName() + ".address";
+
+    private ClientIpResolver() {
+    }
+
+    public static ClientAddress resolve(HttpServletRequest request) {
+        if (request.getAttribute(ATTRIBUTE) instanceof ClientAddress resolved) {
+            return resolved;
+        }
+        ClientAddress address = ClientAddress.parse(request.getRemoteAddr());
+        if (address == null) {
+            address = ClientAddress.UNKNOWN;
+        }
+        request.setAttribute(ATTRIBUTE, address);
+        return address;
+    }
+}
@@ -1,26 +1,56 @@
 package com.neuralvault.api.filter;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.neuralvault.api.config.RateLimitConfig;
+import com.neuralvault.api.service.BotDetectionService;
+import com.neuralvault.api.service.ClientAddress;
+import com.neuralvault.api.service.ClientStateTable;
+import com.neuralvault.api.service.IpBlocklistService;
+import com.neuralvault.api.service.RecommendationService;
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.ConsumptionProbe;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Component
-@Order(1)
+@Order(2)
 public class RateLimitFilter implements Filter {
 
     private final RateLimitConfig rateLimitConfig;
+    private final ClientStateTable clientStateTable;
+    private final Bucket globalBucket;
+    private final BotDetectionService botDetectionService;
+    private final IpBlocklistService ipBlocklistService;
+    private final RecommendationService recommendationService;
+    private final ObjectMapper objectMapper;
 
-    public RateLimitFilter(RateLimitConfig rateLimitConfig) {
+    @Value("${ratelimit.max-body-bytes:16384}")
+    private int maxBodyBytes;
+
+    public RateLimitFilter(RateLimitConfig rateLimitConfig,
+                           ClientStateTable clientStateTable,
+                           Bucket globalRecommendationBucket,
+                           BotDetectionService botDetectionService,
+                           IpBlocklistService ipBlocklistService,
+                           RecommendationService recommendationService,
+                           ObjectMapper objectMapper) {
         this.rateLimitConfig = rateLimitConfig;
+        this.clientStateTable = clientStateTable;
+        this.globalBucket = globalRecommendationBucket;
+        this.botDetectionService = botDetectionService;
+        this.ipBlocklistService = ipBlocklistService;
+        this.recommendationService = recommendationService;
+        this.objectMapper = objectMapper;
     }
 
     @Override
@@ -30,44 +60,90 @@ public class RateLimitFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        // Only apply to /api/recommend endpoint
+        // Only apply to POST /api/recommend: CORS preflights (OPTIONS) never reach Gemini
         String path = httpRequest.getRequestURI();
-        if (!path.endsWith("/api/recommend")) {
+        if (!path.endsWith("/api/recommend") || !"POST".equals(httpRequest.getMethod())) {
             chain.doFilter(request, response);
             return;
         }
 
-        // Get client IP
-        String clientIp = getClientIp(httpRequest);
+        // Se lee el cuerpo una vez para saber si la consulta ya esta en cache. La longitud
+        // declarada rechaza pronto; la lectura acotada cubre los cuerpos chunked
+        if (httpRequest.getContentLengthLong() > maxBodyBytes) {
+            httpResponse.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+        CachedBodyHttpServletRequest cachedRequest = new CachedBodyHttpServletRequest(httpRequest, maxBodyBytes);
+        if (cachedRequest.isTooLarge()) {
+            httpResponse.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+
+        // Resuelta una vez por SecurityFilter
+        ClientAddress client = ClientIpResolver.resolve(httpRequest);
 
-        // Simple rate limiting: 10 requests per minute per IP
-        Bucket bucket = rateLimitConfig.resolveBucket(clientIp);
-        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        // Tramo por IP segun la huella; las respuestas cacheadas cuestan una fraccion
+        boolean suspicious = botDetectionService.isLikelyBot(botDetectionService.analyzeRequest(httpRequest));
+        String query = readQuery(cachedRequest.getCachedBody());
+        boolean cached = query != null && recommendationService.isCached(query);
+
+        // Global: solo las peticiones que pueden llegar a Gemini
+        if (!cached) {
+            ConsumptionProbe global = globalBucket.tryConsumeAndReturnRemaining(1);
+            if (!global.isConsumed()) {
+                long waitForRefill = secondsToWait(global.getNanosToWaitForRefill());
+                log.warn("Global recommendation limit reached. Retry after {} seconds", waitForRefill);
+                reject(httpResponse, HttpServletResponse.SC_SERVICE_UNAVAILABLE, waitForRefill,
+                        "Service busy. Try again in " + waitForRefill + " seconds.");
+                return;
+            }
+        }
 
-        if (probe.isConsumed()) {
+        ClientStateTable.Consumption probe = clientStateTable.tryConsume(
+                client, rateLimitConfig.cost(cached), rateLimitConfig.perIpLimit(suspicious));
+
+        if (probe.consumed()) {
             // Request allowed
-            httpResponse.setHeader("X-RateLimit-Remaining", String.valueOf(probe.getRemainingTokens()));
-            chain.doFilter(request, response);
+            httpResponse.setHeader("X-RateLimit-Remaining", String.valueOf(probe.remaining() / RateLimitConfig.COST_UNITS));
+            if (suspicious) {
+                httpResponse.setHeader("X-RateLimit-Suspicious", "true");
+            }
+            // Respetar el limite borra los rechazos anteriores: solo insistir acaba en bloqueo
+            ipBlocklistService.resetSuspicionScore(client);
+            chain.doFilter(cachedRequest, response);
         } else {
-            // Rate limit exceeded
-            long waitForRefill = probe.getNanosToWaitForRefill() / 1_000_000_000;
-            log.warn("Rate limit exceeded for IP: {}. Retry after {} seconds", clientIp, waitForRefill);
-            httpResponse.setStatus(429);
-            httpResponse.getWriter().write("Rate limit exceeded. Try again in " + waitForRefill + " seconds.");
+            // Rate limit exceeded: la llamada no se hace, se devuelve su token global
+            if (!cached) {
+                globalBucket.addTokens(1);
+            }
+            long waitForRefill = secondsToWait(TimeUnit.MILLISECONDS.toNanos(probe.millisToWait()));
+            log.warn("Rate limit exceeded for IP: {} ({}). Retry after {} seconds",
+                    client, suspicious ? "suspicious" : "normal", waitForRefill);
+            // Penalizacion progresiva: rechazos seguidos acaban en un bloqueo de /api/recommend
+            ipBlocklistService.addSuspicionScore(client, 1);
+            reject(httpResponse, 429, waitForRefill, "Rate limit exceeded. Try again in " + waitForRefill + " seconds.");
         }
     }
 
-    private String getClientIp(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
+    private static void reject(HttpServletResponse response, int status, long retryAfterSeconds, String message)
+            throws IOException {
+        response.setStatus(status);
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.getWriter().write(message);
+    }
 
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
-        }
+    private static long secondsToWait(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos + 999_999_999));
+    }
 
-        return request.getRemoteAddr();
+    // Un cuerpo invalido lo rechazara la validacion del controlador; aqui cuenta como no cacheado
+    private String readQuery(byte[] body) {
+        try {
+            JsonNode root = objectMapper.readTree(body);
+            JsonNode query = root == null ? null : root.path("query");
+            return query != null && query.isTextual() ? query.asText() : null;
+        } catch (IOException e) {
+            return null;
+        }
     }
 }
@@ -0,0 +1,74 @@
+package com.neuralvault.api.filter;
+
+import com.neuralvault.api.service.ApiUsageMonitor;
+import com.neuralvault.api.service.BotDetectionService;
+import com.neuralvault.api.service.ClientAddress;
+import com.neuralvault.api.service.IpBlocklistService;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Primer filtro de /api/recommend: rechaza las IPs bloqueadas antes de hacer ningun otro
+ * trabajo y bloquea los clientes cuya huella es de alto riesgo. La IP y la huella quedan en
+ * la peticion para {@link RateLimitFilter}. Los bloqueos no afectan a las lecturas del
+ * catalogo, que no consumen cuota de Gemini: una IP compartida bloqueada sigue pudiendo navegar.
+ */
+@Slf4j
+@Component
+@Order(1)
+public class SecurityFilter implements Filter {
+
+    private final IpBlocklistService ipBlocklistService;
+    private final BotDetectionService botDetectionService;
+    private final ApiUsageMonitor apiUsageMonitor;
+
+    public SecurityFilter(IpBlocklistService ipBlocklistService,
+                          BotDetectionService botDetectionService,
+                          ApiUsageMonitor apiUsageMonitor) {
+        this.ipBlocklistService = ipBlocklistService;
+        this.botDetectionService = botDetectionService;
+        this.apiUsageMonitor = apiUsageMonitor;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        // Solo el endpoint que consume cuota de Gemini; los preflight CORS no cuentan
+        String path = httpRequest.getRequestURI();
+        if (!path.endsWith("/api/recommend") || !"POST".equals(httpRequest.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        ClientAddress client = ClientIpResolver.resolve(httpRequest);
+        if (ipBlocklistService.isBlocked(client)) {
+            apiUsageMonitor.recordBlockedRequest();
+            httpResponse.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        apiUsageMonitor.recordRequest();
+        BotDetectionService.RequestFingerprint fingerprint = botDetectionService.analyzeRequest(httpRequest);
+        if (botDetectionService.shouldBlock(fingerprint)) {
+            ipBlocklistService.blockIp(client, "High-risk fingerprint (score " + fingerprint.suspicionScore() + ")");
+            apiUsageMonitor.recordBlockedRequest();
+            httpResponse.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        if (botDetectionService.isLikelyBot(fingerprint)) {
+            apiUsageMonitor.recordSuspiciousRequest();
+        }
+
+        chain.doFilter(request, response);
+    }
+}
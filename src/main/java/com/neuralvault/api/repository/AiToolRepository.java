@@ -2,6 +2,7 @@ package com.neuralvault.api.repository;
 
 import com.neuralvault.api.entity.AiTool;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,4 +10,14 @@ import java.util.List;
 @Repository
 public interface AiToolRepository extends JpaRepository<AiTool, String> {
     List<AiTool> findByCategory(AiTool.Category category);
+
+    // Catalogo completo en dos consultas planas, sin importar cuantas herramientas haya;
+    // las herramientas y sus tags se agrupan en memoria
+    @Query("select new com.neuralvault.api.repository.AiToolRow("
+            + "t.id, t.name, t.specialty, t.description, t.pricing, t.url, t.icon, t.category) "
+            + "from AiTool t")
+    List<AiToolRow> findAllRows();
+
+    @Query("select new com.neuralvault.api.repository.AiToolTagRow(t.id, tag) from AiTool t join t.tags tag")
+    List<AiToolTagRow> findAllTagRows();
 }
@@ -0,0 +1,17 @@
+package com.neuralvault.api.repository;
+
+import com.neuralvault.api.entity.AiTool;
+
+/**
+ * Proyeccion plana de las columnas de {@code ai_tool}, sin entidad gestionada ni tags.
+ */
+public record AiToolRow(
+    String id,
+    String name,
+    String specialty,
+    String description,
+    String pricing,
+    String url,
+    String icon,
+    AiTool.Category category
+) {}
@@ -0,0 +1,6 @@
+package com.neuralvault.api.repository;
+
+/**
+ * Una fila de {@code ai_tool_tags}.
+ */
+public record AiToolTagRow(String toolId, String tag) {}
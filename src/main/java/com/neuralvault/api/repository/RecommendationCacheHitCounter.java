@@ -0,0 +1,14 @@
+package com.neuralvault.api.repository;
+
+import java.util.Map;
+
+/**
+ * Fragmento de {@link RecommendationCacheRepository} para sumar contadores de uso en lote.
+ */
+public interface RecommendationCacheHitCounter {
+
+    /**
+     * Suma a cada clave sus peticiones en un unico lote JDBC; las claves sin fila se ignoran.
+     */
+    void incrementHits(Map<String, Long> hitsByKey);
+}
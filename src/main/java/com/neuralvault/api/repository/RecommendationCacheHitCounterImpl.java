@@ -0,0 +1,31 @@
+package com.neuralvault.api.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class RecommendationCacheHitCounterImpl implements RecommendationCacheHitCounter {
+
+    private static final String INCREMENT_HITS =
+            "update recommendation_cache set hit_count = hit_count + ? where cache_key = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RecommendationCacheHitCounterImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public void incrementHits(Map<String, Long> hitsByKey) {
+        if (hitsByKey.isEmpty()) {
+            return;
+        }
+        List<Object[]> updates = new ArrayList<>(hitsByKey.size());
+        hitsByKey.forEach((cacheKey, hits) -> updates.add(new Object[]{hits, cacheKey}));
+        jdbcTemplate.batchUpdate(INCREMENT_HITS, updates);
+    }
+}
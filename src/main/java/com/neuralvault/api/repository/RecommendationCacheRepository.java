@@ -0,0 +1,27 @@
+package com.neuralvault.api.repository;
+
+import com.neuralvault.api.entity.RecommendationCacheEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RecommendationCacheRepository extends JpaRepository<RecommendationCacheEntry, String>,
+        RecommendationCacheHitCounter {
+
+    Optional<RecommendationCacheEntry> findByCacheKeyAndExpiresAtAfter(String cacheKey, Instant now);
+
+    List<RecommendationCacheEntry> findByExpiresAtAfterOrderByHitCountDesc(Instant now, Pageable page);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RecommendationCacheEntry e where e.expiresAt < :now")
+    int deleteExpired(Instant now);
+}
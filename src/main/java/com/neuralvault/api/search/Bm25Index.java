@@ -0,0 +1,102 @@
+package com.neuralvault.api.search;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indice invertido inmutable con ranking BM25. Los documentos se identifican por
+ * su ordinal (posicion en la lista usada al construir el indice).
+ */
+public final class Bm25Index {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private final Map<String, Postings> postings;
+    private final int[] docLengths;
+    private final float averageDocLength;
+
+    private record Postings(int[] docs, int[] frequencies, float idf) {}
+
+    private Bm25Index(Map<String, Postings> postings, int[] docLengths, float averageDocLength) {
+        this.postings = postings;
+        this.docLengths = docLengths;
+        this.averageDocLength = averageDocLength;
+    }
+
+    /**
+     * @param documents terminos de cada documento; un termino repetido cuenta como mayor frecuencia,
+     *                  lo que permite dar mas peso a campos como el nombre o los tags
+     */
+    public static Bm25Index build(List<List<String>> documents) {
+        int docCount = documents.size();
+        int[] docLengths = new int[docCount];
+        Map<String, Map<Integer, Integer>> frequencies = new HashMap<>();
+        long totalLength = 0;
+
+        for (int doc = 0; doc < docCount; doc++) {
+            List<String> terms = documents.get(doc);
+            docLengths[doc] = terms.size();
+            totalLength += terms.size();
+            for (String term : terms) {
+                frequencies.computeIfAbsent(term, t -> new HashMap<>()).merge(doc, 1, Integer::sum);
+            }
+        }
+
+        Map<String, Postings> postings = new HashMap<>(frequencies.size() * 2);
+        frequencies.forEach((term, byDoc) -> {
+            int[] docs = byDoc.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            int[] tfs = new int[docs.length];
+            for (int i = 0; i < docs.length; i++) {
+                tfs[i] = byDoc.get(docs[i]);
+            }
+            float idf = (float) Math.log(1 + (docCount - docs.length + 0.5) / (docs.length + 0.5));
+            postings.put(term, new Postings(docs, tfs, idf));
+        });
+
+        float average = docCount == 0 ? 0 : (float) totalLength / docCount;
+        return new Bm25Index(postings, docLengths, average);
+    }
+
+    /**
+     * Devuelve los ordinales de los {@code limit} documentos con mayor puntuacion,
+     * ordenados de mayor a menor. Solo incluye documentos con al menos un termino en comun.
+     */
+    public int[] search(List<String> queryTerms, int limit) {
+        if (queryTerms.isEmpty() || docLengths.length == 0 || limit <= 0) {
+            return new int[0];
+        }
+
+        float[] scores = new float[docLengths.length];
+        int[] touched = new int[docLengths.length];
+        int touchedCount = 0;
+
+        for (String term : queryTerms.stream().distinct().toList()) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                continue;
+            }
+            int[] docs = list.docs();
+            int[] tfs = list.frequencies();
+            for (int i = 0; i < docs.length; i++) {
+                int doc = docs[i];
+                float tf = tfs[i];
+                float norm = K1 * (1 - B + B * docLengths[doc] / averageDocLength);
+                if (scores[doc] == 0f) {
+                    touched[touchedCount++] = doc;
+                }
+                scores[doc] += list.idf() * (tf * (K1 + 1)) / (tf + norm);
+            }
+        }
+
+        // Seleccion parcial: monticulo de tamano limit sobre los documentos con coincidencias
+        return TopK.select(touched, touchedCount, limit, (a, b) -> scores[a] != scores[b]
+                ? scores[a] > scores[b]
+                : a < b);
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+}
@@ -0,0 +1,16 @@
+package com.neuralvault.api.search;
+
+/**
+ * Convierte texto en un vector denso para la cache semantica. Para sustituir la
+ * implementacion local por defecto basta con declarar otro bean de este tipo.
+ */
+public interface EmbeddingProvider {
+
+    int dimensions();
+
+    /**
+     * @return vector de {@link #dimensions()} componentes normalizado (norma L2 = 1),
+     *         o un vector de ceros si el texto no tiene terminos utiles
+     */
+    float[] embed(String text);
+}
@@ -0,0 +1,81 @@
+package com.neuralvault.api.search;
+
+import java.util.List;
+
+/**
+ * Embedding local sin red: feature hashing de palabras y trigramas de caracteres
+ * sobre el texto normalizado. Captura solapamiento lexico y variaciones
+ * morfologicas ("edicion"/"editar"), no sinonimia real.
+ */
+public class HashedNgramEmbeddingProvider implements EmbeddingProvider {
+
+    private static final float WORD_WEIGHT = 1.0f;
+    private static final float TRIGRAM_WEIGHT = 0.5f;
+
+    private final int dimensions;
+
+    public HashedNgramEmbeddingProvider(int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("Embedding dimensions must be positive: " + dimensions);
+        }
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        List<String> tokens = TextNormalizer.tokenize(text);
+
+        for (String token : tokens) {
+            add(vector, hash(token, 0, token.length(), 0x9E3779B9), WORD_WEIGHT);
+
+            String padded = "#" + token + "#";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                add(vector, hash(padded, i, i + 3, 0x85EBCA6B), TRIGRAM_WEIGHT);
+            }
+        }
+
+        normalize(vector);
+        return vector;
+    }
+
+    private void add(float[] vector, int hash, float weight) {
+        int index = Math.floorMod(hash, dimensions);
+        // Un bit independiente decide el signo para que las colisiones tiendan a cancelarse
+        vector[index] += (hash & 0x40000000) == 0 ? weight : -weight;
+    }
+
+    private static int hash(String text, int from, int to, int seed) {
+        int h = seed;
+        for (int i = from; i < to; i++) {
+            h ^= text.charAt(i);
+            h *= 0x01000193;
+        }
+        // Finalizador de murmur3 para repartir los bits
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static void normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            return;
+        }
+        float inverse = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= inverse;
+        }
+    }
+}
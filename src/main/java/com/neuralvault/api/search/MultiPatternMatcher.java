@@ -0,0 +1,149 @@
+package com.neuralvault.api.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Automata de Aho-Corasick para buscar a la vez hasta 64 subcadenas ASCII sin distinguir
+ * mayusculas, en una sola pasada y sin reservar memoria por busqueda.
+ * <p>
+ * La tabla de transiciones es completa (un DFA): cada caracter cuesta una lectura de
+ * array. Los caracteres que no aparecen en ningun patron comparten una sola columna.
+ */
+public final class MultiPatternMatcher {
+
+    public static final int INITIAL_STATE = 0;
+
+    private final byte[] charClass;
+    private final int classes;
+    private final int[] transitions;
+    private final long[] outputs;
+
+    private MultiPatternMatcher(byte[] charClass, int classes, int[] transitions, long[] outputs) {
+        this.charClass = charClass;
+        this.classes = classes;
+        this.transitions = transitions;
+        this.outputs = outputs;
+    }
+
+    /**
+     * @param patterns subcadenas ASCII no vacias; el patron {@code i} es el bit {@code i} del resultado
+     */
+    public static MultiPatternMatcher of(List<String> patterns) {
+        if (patterns.size() > Long.SIZE) {
+            throw new IllegalArgumentException("At most 64 patterns are supported");
+        }
+
+        // Clase 0: cualquier caracter que no aparece en los patrones
+        byte[] charClass = new byte[128];
+        int classes = 1;
+        for (String pattern : patterns) {
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Empty pattern");
+            }
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = Character.toLowerCase(pattern.charAt(i));
+                if (c >= 128) {
+                    throw new IllegalArgumentException("Non-ASCII pattern: " + pattern);
+                }
+                if (charClass[c] == 0) {
+                    charClass[c] = (byte) classes++;
+                }
+            }
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            charClass[Character.toUpperCase(c)] = charClass[c];
+        }
+
+        // Trie: -1 marca una transicion que aun no existe
+        List<int[]> trie = new ArrayList<>();
+        List<Long> found = new ArrayList<>();
+        trie.add(newState(classes));
+        found.add(0L);
+        for (int p = 0; p < patterns.size(); p++) {
+            String pattern = patterns.get(p);
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int cls = charClass[Character.toLowerCase(pattern.charAt(i))];
+                if (trie.get(state)[cls] < 0) {
+                    trie.get(state)[cls] = trie.size();
+                    trie.add(newState(classes));
+                    found.add(0L);
+                }
+                state = trie.get(state)[cls];
+            }
+            found.set(state, found.get(state) | (1L << p));
+        }
+
+        // Enlaces de fallo en anchura; cada estado hereda las salidas de su enlace
+        int states = trie.size();
+        int[] transitions = new int[states * classes];
+        long[] outputs = new long[states];
+        int[] fail = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int cls = 0; cls < classes; cls++) {
+            int next = trie.get(0)[cls];
+            transitions[cls] = Math.max(next, 0);
+            if (next > 0) {
+                queue.add(next);
+            }
+        }
+        outputs[0] = found.get(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = found.get(state) | outputs[fail[state]];
+            for (int cls = 0; cls < classes; cls++) {
+                int next = trie.get(state)[cls];
+                if (next < 0) {
+                    transitions[state * classes + cls] = transitions[fail[state] * classes + cls];
+                } else {
+                    fail[next] = transitions[fail[state] * classes + cls];
+                    transitions[state * classes + cls] = next;
+                    queue.add(next);
+                }
+            }
+        }
+        return new MultiPatternMatcher(charClass, classes, transitions, outputs);
+    }
+
+    /**
+     * @return mascara con el bit {@code i} activo si el patron {@code i} aparece en el texto
+     */
+    public long match(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        long matched = 0;
+        int state = INITIAL_STATE;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            matched |= matches(state);
+        }
+        return matched;
+    }
+
+    /**
+     * Avance caracter a caracter, para quien procesa el texto como un flujo. Se empieza
+     * en {@link #INITIAL_STATE}.
+     */
+    public int next(int state, char c) {
+        int cls = c < 128 ? charClass[c] : 0;
+        return transitions[state * classes + cls];
+    }
+
+    /**
+     * @return patrones que terminan en el ultimo caracter consumido para llegar a {@code state}
+     */
+    public long matches(int state) {
+        return outputs[state];
+    }
+
+    private static int[] newState(int classes) {
+        int[] state = new int[classes];
+        Arrays.fill(state, -1);
+        return state;
+    }
+}
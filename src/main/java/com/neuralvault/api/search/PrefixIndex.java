@@ -0,0 +1,177 @@
+package com.neuralvault.api.search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Indice inmutable para autocompletado: terminos ordenados en arrays paralelos
+ * (termino, documento, peso) y busqueda binaria del primer termino con el prefijo.
+ * Los documentos se identifican por su ordinal, como en {@link Bm25Index}.
+ */
+public final class PrefixIndex {
+
+    // Entradas (termino, documento) recorridas como mucho para un prefijo de una sola letra;
+    // un termino frecuente ocupa una entrada por documento
+    static final int MAX_SHORT_PREFIX_RUN = 512;
+
+    private final String[] terms;
+    private final int[] docs;
+    private final byte[] weights;
+
+    private PrefixIndex(String[] terms, int[] docs, byte[] weights) {
+        this.terms = terms;
+        this.docs = docs;
+        this.weights = weights;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Ordinales de los documentos en los que cada palabra de la consulta es prefijo de
+     * algun termino (todas deben coincidir), de mayor a menor puntuacion. Una coincidencia
+     * exacta puntua el doble que una por prefijo; a igual puntuacion gana el menor ordinal.
+     * <p>
+     * El coste depende de las entradas recorridas, no del tamano del catalogo: los
+     * candidatos salen del tramo de la primera palabra, y con prefijos de una letra cada
+     * tramo se corta a {@value #MAX_SHORT_PREFIX_RUN} entradas (termino, documento).
+     */
+    public int[] search(String query, int limit) {
+        List<String> words = TextNormalizer.words(query);
+        if (words.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+
+        // Candidatos: documentos del tramo de la primera palabra, ordenados y sin repetir
+        String first = words.get(0);
+        int from = lowerBound(first);
+        int to = runEnd(first, from);
+        int[] candidates = Arrays.copyOfRange(docs, from, to);
+        Arrays.sort(candidates);
+        int count = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            if (count == 0 || candidates[count - 1] != candidates[i]) {
+                candidates[count++] = candidates[i];
+            }
+        }
+
+        // Por candidato: puntuacion acumulada, palabras cubiertas y mejor termino de la actual
+        int[] total = new int[count];
+        int[] matched = new int[count];
+        int[] best = new int[count];
+
+        for (int w = 0; w < words.size(); w++) {
+            String word = words.get(w);
+            int start = w == 0 ? from : lowerBound(word);
+            int end = w == 0 ? to : runEnd(word, start);
+            for (int i = start; i < end; i++) {
+                int candidate = Arrays.binarySearch(candidates, 0, count, docs[i]);
+                // Solo cuentan los documentos que coincidieron con todas las palabras anteriores
+                if (candidate < 0 || matched[candidate] != w) {
+                    continue;
+                }
+                int score = terms[i].length() == word.length() ? weights[i] * 2 : weights[i];
+                best[candidate] = Math.max(best[candidate], score);
+            }
+            for (int candidate = 0; candidate < count; candidate++) {
+                if (best[candidate] > 0) {
+                    total[candidate] += best[candidate];
+                    matched[candidate] = w + 1;
+                    best[candidate] = 0;
+                }
+            }
+        }
+
+        // Los que cubren todas las palabras pasan a ser indices de candidato
+        int required = words.size();
+        int found = 0;
+        for (int candidate = 0; candidate < count; candidate++) {
+            if (matched[candidate] == required) {
+                best[found++] = candidate;
+            }
+        }
+        int[] selected = TopK.select(best, found, limit, (a, b) -> total[a] != total[b]
+                ? total[a] > total[b]
+                : a < b);
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = candidates[selected[i]];
+        }
+        return selected;
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    // Fin del tramo de entradas con el prefijo; con una sola letra se recorta
+    private int runEnd(String prefix, int from) {
+        int limit = prefix.length() == 1 ? Math.min(terms.length, from + MAX_SHORT_PREFIX_RUN) : terms.length;
+        int i = from;
+        while (i < limit && terms[i].startsWith(prefix)) {
+            i++;
+        }
+        return i;
+    }
+
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public static final class Builder {
+
+        // termino -> (documento -> peso maximo)
+        private final Map<String, Map<Integer, Integer>> entries = new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Indexa cada palabra del texto para el documento con el peso dado (1-63).
+         */
+        public Builder add(int doc, String text, int weight) {
+            for (String word : TextNormalizer.words(text)) {
+                entries.computeIfAbsent(word, w -> new HashMap<>()).merge(doc, weight, Math::max);
+            }
+            return this;
+        }
+
+        public PrefixIndex build() {
+            String[] sortedTerms = entries.keySet().toArray(new String[0]);
+            Arrays.sort(sortedTerms);
+
+            int size = 0;
+            for (Map<Integer, Integer> postings : entries.values()) {
+                size += postings.size();
+            }
+            String[] terms = new String[size];
+            int[] docs = new int[size];
+            byte[] weights = new byte[size];
+
+            int i = 0;
+            for (String term : sortedTerms) {
+                // Misma instancia del termino para todas sus entradas
+                for (Map.Entry<Integer, Integer> posting : new TreeMap<>(entries.get(term)).entrySet()) {
+                    terms[i] = term;
+                    docs[i] = posting.getKey();
+                    weights[i] = (byte) Math.min(63, posting.getValue());
+                    i++;
+                }
+            }
+            return new PrefixIndex(terms, docs, weights);
+        }
+    }
+}
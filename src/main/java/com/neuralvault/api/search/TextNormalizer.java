@@ -0,0 +1,149 @@
+package com.neuralvault.api.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Normalizacion de texto compartida por los indices de busqueda: minusculas,
+ * eliminacion de acentos y tokenizacion con stopwords en espanol e ingles.
+ */
+public final class TextNormalizer {
+
+    // Sin palabras que cambian el sentido de la consulta ("con"/"sin", "with"/"without",
+    // "no"): quitarlas haria que "editor con IA" y "editor sin IA" compartan clave de cache
+    private static final Set<String> STOPWORDS = Set.of(
+        // Espanol
+        "a", "al", "algo", "de", "del", "el", "en", "es", "esta", "este", "la", "las",
+        "lo", "los", "me", "mi", "muy", "necesito", "para", "por", "que", "quiero", "se",
+        "su", "sus", "un", "una", "uno", "unos", "unas", "y", "o", "u", "como", "mas",
+        "busco", "tu", "te", "le", "les", "ya", "hay", "ser", "sobre",
+        // English
+        "an", "and", "are", "as", "at", "be", "by", "for", "from", "i", "in", "is", "it",
+        "my", "need", "of", "on", "or", "some", "something", "that", "the", "this",
+        "to", "want", "looking", "can", "do", "you", "your", "what", "which", "best"
+    );
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Convierte a minusculas y elimina diacriticos ("Edicion" y "edición" quedan iguales).
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        boolean ascii = true;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 128) {
+                ascii = false;
+                break;
+            }
+        }
+        if (ascii) {
+            return text.toLowerCase();
+        }
+
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                folded.append(Character.toLowerCase(c));
+            }
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Palabras del texto sin acentos ni mayusculas, sin stopwords ni reduccion de plurales:
+     * para busqueda por prefijo, donde lo escrito debe coincidir literalmente.
+     */
+    public static List<String> words(String text) {
+        String folded = fold(text);
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Divide el texto en terminos indexables: sin acentos, sin stopwords y con
+     * una reduccion ligera de plurales.
+     */
+    public static List<String> tokenize(String text) {
+        String folded = fold(text);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = folded.substring(start, i);
+                if (token.length() > 1 && !STOPWORDS.contains(token)) {
+                    tokens.add(stem(token));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Como {@link #tokenize}, pero para identificar la consulta (clave de cache) y no para
+     * recuperar documentos: conserva los terminos de una letra y los sufijos '#' y '+',
+     * asi "IDE para C", "IDE para R", "IDE for C#" e "IDE" dan claves distintas.
+     */
+    public static List<String> keyTokens(String text) {
+        String folded = fold(text);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            char c = i < folded.length() ? folded.charAt(i) : ' ';
+            boolean wordChar = Character.isLetterOrDigit(c);
+            // '#' y '+' solo cuentan pegados al final de una palabra ("c#", "c++", "notepad++")
+            boolean suffix = start >= 0 && (c == '#' || c == '+');
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (wordChar && start >= 0 && !Character.isLetterOrDigit(folded.charAt(i - 1))) {
+                // "c#x": lo que sigue al sufijo es otra palabra
+                addKeyToken(tokens, folded.substring(start, i));
+                start = i;
+            } else if (!wordChar && !suffix && start >= 0) {
+                addKeyToken(tokens, folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addKeyToken(List<String> tokens, String token) {
+        if (!STOPWORDS.contains(token)) {
+            tokens.add(stem(token));
+        }
+    }
+
+    public static boolean isStopword(String token) {
+        return STOPWORDS.contains(token);
+    }
+
+    // Plurales simples: "tools" -> "tool", "fotos" -> "foto"
+    private static String stem(String token) {
+        int length = token.length();
+        if (length > 3 && token.charAt(length - 1) == 's' && token.charAt(length - 2) != 's') {
+            return token.substring(0, length - 1);
+        }
+        return token;
+    }
+}
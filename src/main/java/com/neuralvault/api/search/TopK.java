@@ -0,0 +1,86 @@
+package com.neuralvault.api.search;
+
+/**
+ * Seleccion de los {@code limit} mejores elementos con un monticulo acotado sobre
+ * indices {@code int}: O(n log k) y sin cajas ni ordenar todos los candidatos.
+ */
+final class TopK {
+
+    /**
+     * Orden total entre documentos: {@code true} si {@code a} va antes que {@code b}.
+     */
+    @FunctionalInterface
+    interface Order {
+        boolean before(int a, int b);
+    }
+
+    private TopK() {
+    }
+
+    /**
+     * @return los mejores de {@code items[0..count)}, del primero al ultimo segun {@code order}
+     */
+    static int[] select(int[] items, int count, int limit, Order order) {
+        int k = Math.min(limit, count);
+        if (k <= 0) {
+            return new int[0];
+        }
+
+        // En la raiz el peor de los conservados
+        int[] heap = new int[k];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int item = items[i];
+            if (size < k) {
+                heap[size] = item;
+                siftUp(heap, size++, order);
+            } else if (order.before(item, heap[0])) {
+                heap[0] = item;
+                siftDown(heap, k, order);
+            }
+        }
+
+        int[] result = new int[size];
+        for (int n = size; n > 0; n--) {
+            result[n - 1] = heap[0];
+            heap[0] = heap[n - 1];
+            siftDown(heap, n - 1, order);
+        }
+        return result;
+    }
+
+    private static void siftUp(int[] heap, int index, Order order) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!order.before(heap[parent], heap[index])) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, Order order) {
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && order.before(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!order.before(heap[index], heap[child])) {
+                return;
+            }
+            swap(heap, index, child);
+            index = child;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+}
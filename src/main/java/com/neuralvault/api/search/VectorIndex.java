@@ -0,0 +1,166 @@
+package com.neuralvault.api.search;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Indice vectorial de capacidad fija sobre un unico {@code float[]} contiguo.
+ * La busqueda es por fuerza bruta (producto escalar sobre vectores normalizados)
+ * recorriendo memoria contigua. Al llenarse reemplaza la entrada mas antigua; la
+ * caducidad o invalidacion de entradas la decide quien lo usa mediante predicados.
+ */
+public final class VectorIndex<T> {
+
+    private final int dimensions;
+    private final int capacity;
+    private final float[] vectors;
+    private final Object[] payloads;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int size;
+    private int next;
+
+    public record Match<T>(T payload, float similarity) {}
+
+    public VectorIndex(int dimensions, int capacity) {
+        this.dimensions = dimensions;
+        this.capacity = capacity;
+        this.vectors = new float[dimensions * capacity];
+        this.payloads = new Object[capacity];
+    }
+
+    public void add(float[] vector, T payload) {
+        addOrReplace(vector, payload, existing -> false);
+    }
+
+    /**
+     * Sobrescribe en su sitio la primera entrada que cumple {@code sameKey}; si no hay
+     * ninguna, anade como {@link #add}.
+     */
+    public void addOrReplace(float[] vector, T payload, Predicate<? super T> sameKey) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+        lock.writeLock().lock();
+        try {
+            for (int slot = 0; slot < size; slot++) {
+                @SuppressWarnings("unchecked")
+                T existing = (T) payloads[slot];
+                if (sameKey.test(existing)) {
+                    System.arraycopy(vector, 0, vectors, slot * dimensions, dimensions);
+                    payloads[slot] = payload;
+                    return;
+                }
+            }
+            System.arraycopy(vector, 0, vectors, next * dimensions, dimensions);
+            payloads[next] = payload;
+            next = (next + 1) % capacity;
+            size = Math.min(size + 1, capacity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return la entrada mas similar, o {@code null} si el indice esta vacio
+     */
+    public Match<T> nearest(float[] query) {
+        return nearest(query, payload -> true);
+    }
+
+    /**
+     * @return la entrada mas similar de las que cumplen {@code accept}, o {@code null} si no hay
+     */
+    @SuppressWarnings("unchecked")
+    public Match<T> nearest(float[] query, Predicate<? super T> accept) {
+        lock.readLock().lock();
+        try {
+            int best = -1;
+            float bestSimilarity = Float.NEGATIVE_INFINITY;
+            for (int slot = 0; slot < size; slot++) {
+                float similarity = dot(query, slot * dimensions);
+                if (similarity > bestSimilarity && accept.test((T) payloads[slot])) {
+                    bestSimilarity = similarity;
+                    best = slot;
+                }
+            }
+            return best < 0 ? null : new Match<>((T) payloads[best], bestSimilarity);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retira las entradas que cumplen {@code filter} conservando el orden de antiguedad
+     * del resto, de modo que al llenarse se sigue reemplazando la mas antigua.
+     *
+     * @return entradas retiradas
+     */
+    @SuppressWarnings("unchecked")
+    public int removeIf(Predicate<? super T> filter) {
+        lock.writeLock().lock();
+        try {
+            // Con el indice lleno la mas antigua esta en next; si no, en 0
+            int oldest = size < capacity ? 0 : next;
+            float[] keptVectors = new float[size * dimensions];
+            Object[] keptPayloads = new Object[size];
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int slot = (oldest + i) % capacity;
+                if (!filter.test((T) payloads[slot])) {
+                    System.arraycopy(vectors, slot * dimensions, keptVectors, kept * dimensions, dimensions);
+                    keptPayloads[kept++] = payloads[slot];
+                }
+            }
+            int removed = size - kept;
+            if (removed > 0) {
+                System.arraycopy(keptVectors, 0, vectors, 0, kept * dimensions);
+                Arrays.fill(payloads, null);
+                System.arraycopy(keptPayloads, 0, payloads, 0, kept);
+                size = kept;
+                next = kept % capacity;
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            Arrays.fill(payloads, null);
+            size = 0;
+            next = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Cuatro acumuladores independientes para no serializar las sumas en punto flotante
+    private float dot(float[] query, int offset) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < dimensions; i += 4) {
+            s0 += query[i] * vectors[offset + i];
+            s1 += query[i + 1] * vectors[offset + i + 1];
+            s2 += query[i + 2] * vectors[offset + i + 2];
+            s3 += query[i + 3] * vectors[offset + i + 3];
+        }
+        for (; i < dimensions; i++) {
+            s0 += query[i] * vectors[offset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+}
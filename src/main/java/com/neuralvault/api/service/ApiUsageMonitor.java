@@ -1,7 +1,10 @@
 package com.neuralvault.api.service;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -17,6 +20,15 @@ public class ApiUsageMonitor {
 
     private final GeminiCircuitBreaker circuitBreaker;
     private final IpBlocklistService ipBlocklistService;
+    private final RecommendationService recommendationService;
+    private final RecommendationKeyGenerator recommendationKeyGenerator;
+    private final CacheManager cacheManager;
+    private final SemanticCache semanticCache;
+    private final GeminiClient geminiClient;
+    private final GeminiBatcher geminiBatcher;
+    private final PersistentRecommendationStore persistentStore;
+    private final ClientStateTable clientStateTable;
+    private final PromptSanitizer promptSanitizer;
 
     // Statistics
     private final AtomicInteger totalRequests = new AtomicInteger(0);
@@ -34,9 +46,27 @@ public class ApiUsageMonitor {
             .withZone(ZoneId.systemDefault());
 
     public ApiUsageMonitor(GeminiCircuitBreaker circuitBreaker,
-                          IpBlocklistService ipBlocklistService) {
+                          IpBlocklistService ipBlocklistService,
+                          RecommendationService recommendationService,
+                          RecommendationKeyGenerator recommendationKeyGenerator,
+                          CacheManager cacheManager,
+                          SemanticCache semanticCache,
+                          GeminiClient geminiClient,
+                          GeminiBatcher geminiBatcher,
+                          PersistentRecommendationStore persistentStore,
+                          ClientStateTable clientStateTable,
+                          PromptSanitizer promptSanitizer) {
         this.circuitBreaker = circuitBreaker;
         this.ipBlocklistService = ipBlocklistService;
+        this.recommendationService = recommendationService;
+        this.recommendationKeyGenerator = recommendationKeyGenerator;
+        this.cacheManager = cacheManager;
+        this.semanticCache = semanticCache;
+        this.geminiClient = geminiClient;
+        this.geminiBatcher = geminiBatcher;
+        this.persistentStore = persistentStore;
+        this.clientStateTable = clientStateTable;
+        this.promptSanitizer = promptSanitizer;
     }
 
     @PostConstruct
@@ -62,7 +92,7 @@ public class ApiUsageMonitor {
         int blocked = blockedRequests.get();
         int suspicious = suspiciousRequests.get();
         int dailyRemaining = circuitBreaker.getRemainingDailyRequests();
-        int blockedIps = ipBlocklistService.getBlockedIps().size();
+        int blockedIps = ipBlocklistService.getBlockedCount();
 
         log.info("=== API Usage Report (Last Hour) ===");
         log.info("Total requests: {}", total);
@@ -72,6 +102,47 @@ public class ApiUsageMonitor {
         log.info("Currently blocked IPs: {}", blockedIps);
         log.info("Circuit breaker state: {}", circuitBreaker.getState());
 
+        ClientStateTable.Stats clients = clientStateTable.stats();
+        log.info("Client state table: {}/{} entries, {} evicted, {} expired",
+                clients.entries(), clients.maxEntries(), clients.evictions(), clients.expirations());
+
+        RequestCoalescer.Stats coalescing = recommendationService.getCoalescingStats();
+        log.info("Gemini calls coalesced: {} (leaders: {}, timed out waiting: {})",
+                coalescing.coalescedCalls(), coalescing.leaderCalls(), coalescing.timedOutCalls());
+
+        if (cacheManager.getCache("recommendations") instanceof CaffeineCache cache) {
+            CacheStats stats = cache.getNativeCache().stats();
+            log.info("Recommendation cache hit ratio: {}% canonical keys vs {}% with legacy keys ({} lookups)",
+                    stats.requestCount() == 0 ? 0 : Math.round(stats.hitRate() * 100),
+                    Math.round(recommendationKeyGenerator.getLegacyHitRatio() * 100),
+                    stats.requestCount());
+        }
+
+        RecommendationService.FreshnessStats freshness = recommendationService.getFreshnessStats();
+        log.info("Recommendation freshness: {} background refreshes, {} stale answers served",
+                freshness.refreshAheadCalls(), freshness.staleServed());
+        log.info("Recommendation outcomes: {}", recommendationService.getOutcomeCounts());
+        log.info("Suspicious prompts answered without caching: {}", recommendationService.getSuspiciousPromptCount());
+        log.info("Prompts with dangerous characters stripped: {}", promptSanitizer.getStrippedPromptCount());
+
+        PersistentRecommendationStore.Stats persisted = persistentStore.stats();
+        log.info("Persistent cache: {} hits, {} misses, {} pending writes, {} dropped",
+                persisted.hits(), persisted.misses(), persisted.pendingWrites(), persisted.droppedWrites());
+
+        SemanticCache.Stats semantic = semanticCache.stats();
+        log.info("Semantic cache: {} hits, {} misses, {} entries",
+                semantic.hits(), semantic.misses(), semantic.entries());
+
+        LatencyHistogram latencies = geminiClient.getLatencyHistogram();
+        GeminiClient.HedgeStats hedges = geminiClient.getHedgeStats();
+        log.info("Gemini latency (recent {} calls): p50={}ms p95={}ms p99={}ms, hedged: {} sent / {} won",
+                latencies.count(), latencies.percentile(0.50), latencies.percentile(0.95),
+                latencies.percentile(0.99), hedges.sent(), hedges.won());
+
+        GeminiBatcher.Stats batches = geminiBatcher.stats();
+        log.info("Gemini batching: {} queries answered by {} batched calls, {} answers outside their candidates retried",
+                batches.batchedQueries(), batches.batchCalls(), batches.rejectedAnswers());
+
         // Check thresholds and alert
         if (total > ALERT_THRESHOLD_REQUESTS) {
             log.warn("ALERT: High request volume detected: {} requests/hour", total);
@@ -90,9 +161,6 @@ public class ApiUsageMonitor {
         blockedRequests.set(0);
         suspiciousRequests.set(0);
         lastResetTime.set(System.currentTimeMillis());
-
-        // Cleanup expired IP blocks
-        ipBlocklistService.cleanupExpiredBlocks();
     }
 
     @Scheduled(cron = "0 0 0 * * ?") // Daily at midnight
@@ -100,7 +168,7 @@ public class ApiUsageMonitor {
         log.info("=== Daily API Usage Report ===");
         log.info("Daily API requests used: {}/1000", circuitBreaker.getDailyRequestCount());
         log.info("Circuit breaker state at EOD: {}", circuitBreaker.getState());
-        log.info("IPs currently blocked: {}", ipBlocklistService.getBlockedIps().size());
+        log.info("IPs currently blocked: {}", ipBlocklistService.getBlockedCount());
     }
 
     public String getStatus() {
@@ -1,36 +1,48 @@
 package com.neuralvault.api.service;
 
+import com.neuralvault.api.search.MultiPatternMatcher;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.List;
 
 @Slf4j
 @Component
 public class BotDetectionService {
 
+    private static final String FINGERPRINT_ATTRIBUTE = BotDetectionService.class.getName() + ".fingerprint";
+
     // Known bot user agents
-    private static final Set<String> KNOWN_BOTS = Set.of(
+    private static final List<String> KNOWN_BOTS = List.of(
         "bot", "crawler", "spider", "scraper", "curl", "wget", "python-requests",
         "httpclient", "axios", "postman", "insomnia", "scrapy", "selenium",
         "playwright", "puppeteer", "headless", "phantomjs", "slimerjs"
     );
 
-    // Suspicious patterns in headers
-    private static final Pattern[] SUSPICIOUS_PATTERNS = {
-        Pattern.compile("(?i)burp|sqlmap|nikto|nmap|masscan|zgrab"),
-        Pattern.compile("(?i)nessus|openvas|qualys|acunetix|netsparker"),
-    };
+    // Security scanner signatures; each group adds its score once
+    private static final List<String> SCANNERS = List.of("burp", "sqlmap", "nikto", "nmap", "masscan", "zgrab");
+    private static final List<String> VULNERABILITY_SCANNERS = List.of("nessus", "openvas", "qualys", "acunetix", "netsparker");
 
     // Legitimate browser patterns
-    private static final Pattern LEGITIMATE_BROWSER = Pattern.compile(
-        "(?i)(mozilla|chrome|safari|firefox|edge|opera|trident)"
-    );
+    private static final List<String> BROWSERS = List.of("mozilla", "chrome", "safari", "firefox", "edge", "opera", "trident");
+
+    // Todas las firmas en un solo automata: una pasada por cabecera, sin regex ni minusculas
+    private static final MultiPatternMatcher SIGNATURES;
+    private static final long BOT_MASK;
+    private static final long SCANNER_MASK;
+    private static final long VULNERABILITY_SCANNER_MASK;
+    private static final long BROWSER_MASK;
+
+    static {
+        List<String> patterns = new ArrayList<>();
+        BOT_MASK = addGroup(patterns, KNOWN_BOTS);
+        SCANNER_MASK = addGroup(patterns, SCANNERS);
+        VULNERABILITY_SCANNER_MASK = addGroup(patterns, VULNERABILITY_SCANNERS);
+        BROWSER_MASK = addGroup(patterns, BROWSERS);
+        SIGNATURES = MultiPatternMatcher.of(patterns);
+    }
 
     public record RequestFingerprint(
         String userAgent,
@@ -44,115 +56,74 @@ public class BotDetectionService {
         int suspicionScore
     ) {}
 
+    /**
+     * Huella de la peticion, calculada una sola vez y guardada en la propia peticion para
+     * los siguientes filtros. Solo lee las cabeceras que puntuan.
+     */
     public RequestFingerprint analyzeRequest(HttpServletRequest request) {
-        Map<String, String> headers = extractHeaders(request);
-        
-        String userAgent = headers.getOrDefault("user-agent", "").toLowerCase();
-        String acceptHeader = headers.getOrDefault("accept", "");
-        String acceptLanguage = headers.getOrDefault("accept-language", "");
-        String acceptEncoding = headers.getOrDefault("accept-encoding", "");
-        String referer = headers.getOrDefault("referer", "");
-
-        boolean hasReferer = !referer.isEmpty();
-        boolean isKnownBot = detectKnownBot(userAgent, headers);
-        boolean isLegitimateBrowser = LEGITIMATE_BROWSER.matcher(userAgent).find();
-        boolean hasValidHeaders = validateHeaders(headers);
-        int suspicionScore = calculateSuspicionScore(userAgent, headers, hasValidHeaders);
-
-        return new RequestFingerprint(
-            userAgent,
-            acceptHeader,
-            acceptLanguage,
-            acceptEncoding,
-            hasReferer,
-            hasValidHeaders,
-            isKnownBot,
-            isLegitimateBrowser,
-            suspicionScore
-        );
-    }
-
-    private Map<String, String> extractHeaders(HttpServletRequest request) {
-        Map<String, String> headers = new HashMap<>();
-        Enumeration<String> headerNames = request.getHeaderNames();
-        
-        while (headerNames.hasMoreElements()) {
-            String name = headerNames.nextElement();
-            headers.put(name.toLowerCase(), request.getHeader(name));
-        }
-        
-        return headers;
-    }
-
-    private boolean detectKnownBot(String userAgent, Map<String, String> headers) {
-        if (userAgent == null || userAgent.isEmpty()) {
-            return true; // Empty user agent is suspicious
-        }
-
-        for (String bot : KNOWN_BOTS) {
-            if (userAgent.contains(bot)) {
-                return true;
-            }
+        if (request.getAttribute(FINGERPRINT_ATTRIBUTE) instanceof RequestFingerprint cached) {
+            return cached;
         }
 
+        String userAgent = request.getHeader("User-Agent");
+        String acceptHeader = request.getHeader("Accept");
+        String acceptLanguage = request.getHeader("Accept-Language");
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        String referer = request.getHeader("Referer");
+
+        long userAgentMatches = SIGNATURES.match(userAgent);
+        long headerMatches = userAgentMatches
+                | SIGNATURES.match(acceptHeader)
+                | SIGNATURES.match(acceptLanguage)
+                | SIGNATURES.match(acceptEncoding)
+                | SIGNATURES.match(referer);
+
+        boolean emptyUserAgent = userAgent == null || userAgent.isEmpty();
+        boolean hasReferer = referer != null && !referer.isEmpty();
         // Check headers commonly missing in bots
-        if (!headers.containsKey("accept-language") || 
-            !headers.containsKey("accept-encoding")) {
-            return true;
+        boolean isKnownBot = emptyUserAgent
+                || (userAgentMatches & BOT_MASK) != 0
+                || acceptLanguage == null
+                || acceptEncoding == null;
+        boolean isLegitimateBrowser = (userAgentMatches & BROWSER_MASK) != 0;
+        // Legitimate browsers typically send an Accept for standard content types
+        boolean hasValidHeaders = acceptHeader != null
+                && (acceptHeader.contains("text/html") || acceptHeader.contains("application/json"));
+
+        int suspicionScore = 0;
+        if (emptyUserAgent) {
+            suspicionScore += 3;
         }
-
-        return false;
-    }
-
-    private boolean validateHeaders(Map<String, String> headers) {
-        // Legitimate browsers typically send these headers
-        if (!headers.containsKey("accept")) {
-            return false;
-        }
-
-        String accept = headers.get("accept");
-        if (!accept.contains("text/html") && !accept.contains("application/json")) {
-            // Suspicious: not accepting standard content types
-            return false;
+        if (isKnownBot) {
+            suspicionScore += 2;
         }
-
-        return true;
-    }
-
-    private int calculateSuspicionScore(String userAgent, Map<String, String> headers, boolean hasValidHeaders) {
-        int score = 0;
-
-        // No user agent
-        if (userAgent == null || userAgent.isEmpty()) {
-            score += 3;
-        }
-
-        // Known bot
-        if (detectKnownBot(userAgent, headers)) {
-            score += 2;
-        }
-
-        // Invalid headers
         if (!hasValidHeaders) {
-            score += 2;
+            suspicionScore += 2;
         }
-
-        // Suspicious patterns in headers
-        for (Pattern pattern : SUSPICIOUS_PATTERNS) {
-            for (String headerValue : headers.values()) {
-                if (pattern.matcher(headerValue).find()) {
-                    score += 5; // High score for security scanner
-                    break;
-                }
-            }
+        // High score for security scanners
+        if ((headerMatches & SCANNER_MASK) != 0) {
+            suspicionScore += 5;
         }
-
-        // Missing common browser headers
-        if (!headers.containsKey("accept-language")) {
-            score += 1;
+        if ((headerMatches & VULNERABILITY_SCANNER_MASK) != 0) {
+            suspicionScore += 5;
+        }
+        if (acceptLanguage == null) {
+            suspicionScore += 1;
         }
 
-        return score;
+        RequestFingerprint fingerprint = new RequestFingerprint(
+            userAgent == null ? "" : userAgent,
+            acceptHeader == null ? "" : acceptHeader,
+            acceptLanguage == null ? "" : acceptLanguage,
+            acceptEncoding == null ? "" : acceptEncoding,
+            hasReferer,
+            hasValidHeaders,
+            isKnownBot,
+            isLegitimateBrowser,
+            suspicionScore
+        );
+        request.setAttribute(FINGERPRINT_ATTRIBUTE, fingerprint);
+        return fingerprint;
     }
 
     public boolean isLikelyBot(RequestFingerprint fingerprint) {
@@ -165,4 +136,13 @@ public class BotDetectionService {
         return fingerprint.suspicionScore() >= 7 ||
                (fingerprint.isKnownBot() && fingerprint.suspicionScore() >= 5);
     }
+
+    private static long addGroup(List<String> patterns, List<String> group) {
+        long mask = 0;
+        for (String pattern : group) {
+            mask |= 1L << patterns.size();
+            patterns.add(pattern);
+        }
+        return mask;
+    }
 }
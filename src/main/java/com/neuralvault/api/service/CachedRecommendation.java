@@ -0,0 +1,48 @@
+package com.neuralvault.api.service;
+
+import com.neuralvault.api.entity.AiTool;
+
+import java.util.Optional;
+
+/**
+ * Valor del cache de recomendaciones: el resultado tipado, el id de la herramienta
+ * elegida (solo en HIT), la version del catalogo con la que se calculo y el instante
+ * en que se obtuvo, para decidir si esta fresca o caducada. La entidad se resuelve
+ * contra el catalogo al responder.
+ */
+record CachedRecommendation(RecommendationOutcome outcome, String toolId, long catalogVersion, long computedAt) {
+
+    // Cabecera + referencias + dos long; el id es la instancia compartida con el catalogo
+    static final int BYTES = 40;
+
+    static CachedRecommendation hit(AiTool tool, long catalogVersion, long computedAt) {
+        return new CachedRecommendation(RecommendationOutcome.HIT, tool.getId(), catalogVersion, computedAt);
+    }
+
+    static CachedRecommendation of(RecommendationOutcome outcome, long catalogVersion, long computedAt) {
+        return new CachedRecommendation(outcome, null, catalogVersion, computedAt);
+    }
+
+    /**
+     * Un acierto deja de valer si su herramienta cambio o desaparecio despues de
+     * calcularlo; un "sin coincidencia", si desde entonces se anadio o cambio alguna.
+     */
+    boolean isValidFor(CatalogSnapshot catalog) {
+        return switch (outcome) {
+            case HIT -> catalogVersion >= catalog.toolVersion(toolId);
+            case NO_MATCH, NO_CANDIDATES -> catalogVersion >= catalog.expansionVersion();
+            case UPSTREAM_ERROR, BUDGET_EXHAUSTED -> true;
+        };
+    }
+
+    /**
+     * @return la herramienta, o vacio si no hay id o ya no existe en el catalogo
+     */
+    Optional<AiTool> resolve(CatalogSnapshot catalog) {
+        return toolId == null ? Optional.empty() : catalog.findById(toolId);
+    }
+
+    long ageMs(long now) {
+        return now - computedAt;
+    }
+}
@@ -0,0 +1,175 @@
+package com.neuralvault.api.service;
+
+import com.neuralvault.api.entity.AiTool;
+import com.neuralvault.api.search.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indices de facetas sobre los ordinales del catalogo. Categoria y precio tienen pocos
+ * valores densos y usan un {@link BitSet} por valor; los tags son muchos y dispersos y
+ * guardan su lista ordenada de ordinales, que solo se vuelca a bits al filtrar.
+ */
+public final class CatalogFacets {
+
+    private final int size;
+    private final Map<AiTool.Category, BitSet> categories;
+    private final Map<PricingBucket, BitSet> pricing;
+    private final Map<String, int[]> tags;
+    private final Map<String, String> tagLabels;
+
+    /**
+     * Filtro combinado: OR dentro de categorias y de precios, AND entre dimensiones, y
+     * los tags en modo "alguno" o "todos". Un conjunto vacio no restringe.
+     */
+    public record Query(Set<AiTool.Category> categories, Set<PricingBucket> pricing,
+                        List<String> tags, boolean allTags) {}
+
+    /**
+     * Coincidencias y recuentos por valor. Cada dimension se cuenta aplicando el resto de
+     * filtros pero no el suyo, para que el cliente vea cuantos resultados tendria al
+     * cambiar esa seleccion.
+     */
+    public record Result(BitSet matches, Map<AiTool.Category, Integer> categoryCounts,
+                         Map<PricingBucket, Integer> pricingCounts, Map<String, Integer> tagCounts) {}
+
+    private CatalogFacets(int size, Map<AiTool.Category, BitSet> categories, Map<PricingBucket, BitSet> pricing,
+                          Map<String, int[]> tags, Map<String, String> tagLabels) {
+        this.size = size;
+        this.categories = categories;
+        this.pricing = pricing;
+        this.tags = tags;
+        this.tagLabels = tagLabels;
+    }
+
+    static CatalogFacets build(List<AiTool> tools) {
+        Map<AiTool.Category, BitSet> categories = new EnumMap<>(AiTool.Category.class);
+        Map<PricingBucket, BitSet> pricing = new EnumMap<>(PricingBucket.class);
+        Map<String, List<Integer>> tagPostings = new HashMap<>();
+        Map<String, String> tagLabels = new HashMap<>();
+
+        for (int ordinal = 0; ordinal < tools.size(); ordinal++) {
+            AiTool tool = tools.get(ordinal);
+            categories.computeIfAbsent(tool.getCategory(), c -> new BitSet(tools.size())).set(ordinal);
+            pricing.computeIfAbsent(PricingBucket.of(tool.getPricing()), p -> new BitSet(tools.size())).set(ordinal);
+            for (String tag : tool.getTags()) {
+                String key = TextNormalizer.fold(tag).trim();
+                List<Integer> postings = tagPostings.computeIfAbsent(key, k -> new ArrayList<>());
+                // Los ordinales crecen: basta mirar el ultimo para evitar duplicados
+                if (postings.isEmpty() || postings.get(postings.size() - 1) != ordinal) {
+                    postings.add(ordinal);
+                }
+                tagLabels.putIfAbsent(key, tag);
+            }
+        }
+
+        Map<String, int[]> tags = new HashMap<>(tagPostings.size() * 2);
+        tagPostings.forEach((tag, postings) -> tags.put(tag, postings.stream().mapToInt(Integer::intValue).toArray()));
+        return new CatalogFacets(tools.size(), categories, pricing, tags, tagLabels);
+    }
+
+    public Result filter(Query query, int maxTagFacets) {
+        BitSet byCategory = union(categories, query.categories());
+        BitSet byPricing = union(pricing, query.pricing());
+        BitSet byTags = tagMatches(query.tags(), query.allTags());
+
+        BitSet matches = intersect(byCategory, byPricing, byTags);
+
+        Map<AiTool.Category, Integer> categoryCounts = new EnumMap<>(AiTool.Category.class);
+        BitSet withoutCategory = intersect(byPricing, byTags);
+        categories.forEach((category, bits) -> categoryCounts.put(category, countAnd(bits, withoutCategory)));
+
+        Map<PricingBucket, Integer> pricingCounts = new EnumMap<>(PricingBucket.class);
+        BitSet withoutPricing = intersect(byCategory, byTags);
+        pricing.forEach((bucket, bits) -> pricingCounts.put(bucket, countAnd(bits, withoutPricing)));
+
+        // Los tags se cuentan sobre el resultado final: refinan la seleccion actual
+        Map<String, Integer> tagCounts = new HashMap<>();
+        tags.forEach((tag, postings) -> {
+            int count = 0;
+            for (int ordinal : postings) {
+                if (matches.get(ordinal)) {
+                    count++;
+                }
+            }
+            if (count > 0) {
+                tagCounts.put(tagLabels.get(tag), count);
+            }
+        });
+
+        return new Result(matches, categoryCounts, pricingCounts, topTags(tagCounts, maxTagFacets));
+    }
+
+    private <K> BitSet union(Map<K, BitSet> index, Collection<K> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        BitSet result = new BitSet(size);
+        for (K value : values) {
+            BitSet bits = index.get(value);
+            if (bits != null) {
+                result.or(bits);
+            }
+        }
+        return result;
+    }
+
+    private BitSet tagMatches(List<String> requested, boolean all) {
+        if (requested == null || requested.isEmpty()) {
+            return null;
+        }
+        BitSet result = null;
+        for (String tag : requested) {
+            BitSet bits = new BitSet(size);
+            int[] postings = tags.get(TextNormalizer.fold(tag).trim());
+            if (postings != null) {
+                for (int ordinal : postings) {
+                    bits.set(ordinal);
+                }
+            }
+            if (result == null) {
+                result = bits;
+            } else if (all) {
+                result.and(bits);
+            } else {
+                result.or(bits);
+            }
+        }
+        return result;
+    }
+
+    // null significa "sin filtro" en esa dimension
+    private BitSet intersect(BitSet... filters) {
+        BitSet result = new BitSet(size);
+        result.set(0, size);
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private static int countAnd(BitSet values, BitSet filter) {
+        BitSet copy = (BitSet) values.clone();
+        copy.and(filter);
+        return copy.cardinality();
+    }
+
+    private static Map<String, Integer> topTags(Map<String, Integer> counts, int limit) {
+        Map<String, Integer> top = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+}
@@ -0,0 +1,191 @@
+package com.neuralvault.api.service;
+
+import com.neuralvault.api.dto.ToolFilterResult;
+import com.neuralvault.api.dto.ToolPage;
+import com.neuralvault.api.dto.ToolSuggestion;
+import com.neuralvault.api.entity.AiTool;
+import com.neuralvault.api.exception.InvalidRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Consultas de lectura sobre el snapshot del catalogo: el coste de cada respuesta es
+ * proporcional a la pagina pedida, no al tamano del catalogo.
+ */
+@Service
+public class CatalogQueryService {
+
+    private final CatalogService catalogService;
+
+    @Value("${catalog.page.default-limit:50}")
+    private int defaultLimit;
+
+    @Value("${catalog.page.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${catalog.search.default-limit:10}")
+    private int searchDefaultLimit;
+
+    @Value("${catalog.search.max-limit:50}")
+    private int searchMaxLimit;
+
+    @Value("${catalog.filter.max-tag-facets:20}")
+    private int maxTagFacets;
+
+    public CatalogQueryService(CatalogService catalogService) {
+        this.catalogService = catalogService;
+    }
+
+    /**
+     * Paginacion por clave (keyset) en orden de id. El cursor es opaco para el cliente:
+     * codifica el ultimo id devuelto.
+     */
+    public ToolPage page(String cursor, Integer limit, String fields) {
+        int pageSize = limit == null ? defaultLimit : limit;
+        if (pageSize < 1) {
+            throw new InvalidRequestException("limit must be positive");
+        }
+        pageSize = Math.min(pageSize, maxLimit);
+        ToolFields selected = ToolFields.parse(fields);
+
+        // Se pide uno de mas para saber si hay pagina siguiente sin contar el resto
+        List<AiTool> tools = catalogService.current().pageAfter(decodeCursor(cursor), pageSize + 1);
+        boolean hasMore = tools.size() > pageSize;
+        if (hasMore) {
+            tools = tools.subList(0, pageSize);
+        }
+
+        List<Map<String, Object>> items = new ArrayList<>(tools.size());
+        for (AiTool tool : tools) {
+            items.add(selected.project(tool));
+        }
+        String nextCursor = hasMore ? encodeCursor(tools.get(tools.size() - 1).getId()) : null;
+        return new ToolPage(items, nextCursor);
+    }
+
+    /**
+     * Autocompletado por prefijo sobre nombre, id y tags, ya ordenado por relevancia.
+     */
+    public List<ToolSuggestion> search(String query, Integer limit) {
+        int size = Math.min(limit == null ? searchDefaultLimit : Math.max(limit, 1), searchMaxLimit);
+        CatalogSnapshot catalog = catalogService.current();
+        int[] ordinals = catalog.suggest(query == null ? "" : query, size);
+
+        List<ToolSuggestion> suggestions = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            suggestions.add(ToolSuggestion.from(catalog.get(ordinal)));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Filtrado por categoria, tags y tramo de precio sobre los indices de bits del
+     * snapshot, con recuentos por faceta. Varias categorias o precios se combinan con OR;
+     * los tags con OR ({@code tagMode=any}) o AND ({@code tagMode=all}).
+     */
+    public ToolFilterResult filter(List<String> categories, List<String> tags, String tagMode,
+                                   List<String> pricing, String cursor, Integer limit, String fields) {
+        int pageSize = limit == null ? defaultLimit : limit;
+        if (pageSize < 1) {
+            throw new InvalidRequestException("limit must be positive");
+        }
+        pageSize = Math.min(pageSize, maxLimit);
+        ToolFields selected = ToolFields.parse(fields);
+
+        CatalogFacets.Query query = new CatalogFacets.Query(
+                parseEnums(categories, AiTool.Category.class, "category"),
+                parseEnums(pricing, PricingBucket.class, "pricing"),
+                splitValues(tags),
+                parseTagMode(tagMode));
+
+        CatalogSnapshot catalog = catalogService.current();
+        CatalogFacets.Result result = catalog.facets().filter(query, maxTagFacets);
+        BitSet matches = result.matches();
+
+        List<Map<String, Object>> items = new ArrayList<>(Math.min(pageSize, matches.cardinality()));
+        int ordinal = matches.nextSetBit(catalog.ordinalAfter(decodeCursor(cursor)));
+        String lastId = null;
+        while (ordinal >= 0 && items.size() < pageSize) {
+            AiTool tool = catalog.get(ordinal);
+            items.add(selected.project(tool));
+            lastId = tool.getId();
+            ordinal = matches.nextSetBit(ordinal + 1);
+        }
+        String nextCursor = ordinal >= 0 ? encodeCursor(lastId) : null;
+
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        facets.put("category", byName(result.categoryCounts()));
+        facets.put("pricing", byName(result.pricingCounts()));
+        facets.put("tags", result.tagCounts());
+        return new ToolFilterResult(matches.cardinality(), items, nextCursor, facets);
+    }
+
+    // Acepta parametros repetidos y listas separadas por comas
+    private static List<String> splitValues(List<String> values) {
+        List<String> split = new ArrayList<>();
+        if (values != null) {
+            for (String value : values) {
+                for (String part : value.split(",")) {
+                    if (!part.isBlank()) {
+                        split.add(part.trim());
+                    }
+                }
+            }
+        }
+        return split;
+    }
+
+    private static <E extends Enum<E>> Set<E> parseEnums(List<String> values, Class<E> type, String name) {
+        Set<E> parsed = EnumSet.noneOf(type);
+        for (String value : splitValues(values)) {
+            try {
+                parsed.add(Enum.valueOf(type, value.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidRequestException("Unknown " + name + ": " + value);
+            }
+        }
+        return parsed;
+    }
+
+    private static boolean parseTagMode(String tagMode) {
+        if (tagMode == null || tagMode.equalsIgnoreCase("any")) {
+            return false;
+        }
+        if (tagMode.equalsIgnoreCase("all")) {
+            return true;
+        }
+        throw new InvalidRequestException("tagMode must be 'any' or 'all'");
+    }
+
+    private static <E extends Enum<E>> Map<String, Integer> byName(Map<E, Integer> counts) {
+        Map<String, Integer> named = new LinkedHashMap<>();
+        counts.forEach((key, count) -> named.put(key.name(), count));
+        return named;
+    }
+
+    private static String encodeCursor(String lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+    }
+}
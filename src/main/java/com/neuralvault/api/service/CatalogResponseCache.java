@@ -0,0 +1,147 @@
+package com.neuralvault.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neuralvault.api.dto.AiToolResponse;
+import com.neuralvault.api.entity.AiTool;
+import com.neuralvault.api.event.CatalogRefreshedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cuerpos JSON de los endpoints de lectura del catalogo, serializados y comprimidos
+ * una sola vez por version del catalogo. Las peticiones solo copian bytes.
+ */
+@Slf4j
+@Component
+public class CatalogResponseCache {
+
+    /**
+     * Cuerpo precalculado con su variante gzip. Los ETag son fuertes y distintos por
+     * codificacion, como exige HTTP para representaciones con bytes diferentes.
+     */
+    public record Body(byte[] json, byte[] gzip, String etag, String gzipEtag) {
+
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private record Responses(long version, Body all, Map<AiTool.Category, Body> byCategory, Map<String, Body> byId) {}
+
+    private final CatalogService catalogService;
+    private final ObjectMapper objectMapper;
+
+    private volatile Responses responses;
+
+    public CatalogResponseCache(CatalogService catalogService, ObjectMapper objectMapper) {
+        this.catalogService = catalogService;
+        this.objectMapper = objectMapper;
+    }
+
+    public Body all() {
+        return current().all();
+    }
+
+    public Body byCategory(AiTool.Category category) {
+        return current().byCategory().get(category);
+    }
+
+    public Optional<Body> byId(String id) {
+        return Optional.ofNullable(current().byId().get(id));
+    }
+
+    // Se precalcula al cambiar el catalogo para que la primera peticion no pague la serializacion
+    @EventListener
+    public void onCatalogRefreshed(CatalogRefreshedEvent event) {
+        build(event.current());
+    }
+
+    private Responses current() {
+        CatalogSnapshot catalog = catalogService.current();
+        Responses current = responses;
+        if (current == null || current.version() != catalog.version()) {
+            current = build(catalog);
+        }
+        return current;
+    }
+
+    private synchronized Responses build(CatalogSnapshot catalog) {
+        Responses current = responses;
+        if (current != null && current.version() >= catalog.version()) {
+            return current;
+        }
+
+        long start = System.currentTimeMillis();
+        Map<AiTool.Category, Body> byCategory = new EnumMap<>(AiTool.Category.class);
+        for (AiTool.Category category : AiTool.Category.values()) {
+            byCategory.put(category, body(AiToolResponse.from(catalog.byCategory(category))));
+        }
+        Map<String, Body> byId = new HashMap<>(catalog.size() * 2);
+        for (AiTool tool : catalog.tools()) {
+            byId.put(tool.getId(), body(AiToolResponse.from(tool)));
+        }
+
+        Responses built = new Responses(catalog.version(), body(AiToolResponse.from(catalog.tools())), byCategory, Map.copyOf(byId));
+        responses = built;
+        log.info("Precomputed catalog responses for v{} ({} KB json, {} KB gzip) in {}ms",
+                catalog.version(), built.all().json().length / 1024, built.all().gzip().length / 1024,
+                System.currentTimeMillis() - start);
+        return built;
+    }
+
+    private Body body(Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            String tag = contentHash(json);
+            return new Body(json, gzip(json), "\"" + tag + "\"", "\"" + tag + "-gzip\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize catalog response", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 3 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // El ETag depende solo del contenido: estable entre reinicios e instancias
+    private static String contentHash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.neuralvault.api.service;
+
+import com.neuralvault.api.event.CatalogChangedEvent;
+import com.neuralvault.api.event.CatalogRefreshedEvent;
+import com.neuralvault.api.entity.AiTool;
+import com.neuralvault.api.repository.AiToolRepository;
+import com.neuralvault.api.repository.AiToolRow;
+import com.neuralvault.api.repository.AiToolTagRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mantiene el snapshot inmutable del catalogo. Las lecturas nunca tocan la base
+ * de datos; los cambios se detectan via {@link CatalogChangedEvent} y se aplican
+ * reemplazando el snapshot de forma atomica, tras lo cual se publica
+ * {@link CatalogRefreshedEvent}.
+ */
+@Slf4j
+@Service
+public class CatalogService {
+
+    private final AiToolRepository aiToolRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    public CatalogService(AiToolRepository aiToolRepository, ApplicationEventPublisher eventPublisher) {
+        this.aiToolRepository = aiToolRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public CatalogSnapshot current() {
+        CatalogSnapshot current = snapshot.get();
+        if (current == null) {
+            return refresh();
+        }
+        return current;
+    }
+
+    public synchronized CatalogSnapshot refresh() {
+        dirty.set(false);
+        CatalogSnapshot previous = snapshot.get();
+        long nextVersion = previous == null ? 1 : previous.version() + 1;
+
+        long start = System.currentTimeMillis();
+        CatalogSnapshot loaded = CatalogSnapshot.build(nextVersion, loadTools(), previous);
+
+        // Sin cambios reales no se incrementa la version
+        if (previous != null && previous.fingerprint() == loaded.fingerprint()) {
+            log.debug("Catalog unchanged (version {})", previous.version());
+            return previous;
+        }
+
+        snapshot.set(loaded);
+        log.info("Catalog snapshot v{} loaded: {} tools in {}ms",
+                loaded.version(), loaded.size(), System.currentTimeMillis() - start);
+        eventPublisher.publishEvent(new CatalogRefreshedEvent(previous, loaded));
+        return loaded;
+    }
+
+    // Dos consultas fijas (herramientas y tags) en lugar de una carga perezosa por herramienta
+    private List<AiTool> loadTools() {
+        Map<String, List<String>> tagsByTool = new HashMap<>();
+        for (AiToolTagRow row : aiToolRepository.findAllTagRows()) {
+            tagsByTool.computeIfAbsent(row.toolId(), id -> new ArrayList<>()).add(row.tag());
+        }
+
+        List<AiToolRow> rows = aiToolRepository.findAllRows();
+        List<AiTool> tools = new ArrayList<>(rows.size());
+        for (AiToolRow row : rows) {
+            tools.add(AiTool.builder()
+                    .id(row.id())
+                    .name(row.name())
+                    .specialty(row.specialty())
+                    .description(row.description())
+                    .pricing(row.pricing())
+                    .url(row.url())
+                    .icon(row.icon())
+                    .category(row.category())
+                    .tags(tagsByTool.getOrDefault(row.id(), List.of()))
+                    .build());
+        }
+        return tools;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        log.debug("Catalog change detected for tool {}", event.toolId());
+        dirty.set(true);
+    }
+
+    // Agrupa rafagas de cambios (p.ej. saveAll del seeder) en una sola recarga
+    @Scheduled(fixedDelayString = "${catalog.refresh.delay-ms:2000}")
+    public void refreshIfDirty() {
+        if (dirty.get()) {
+            refresh();
+        }
+    }
+}
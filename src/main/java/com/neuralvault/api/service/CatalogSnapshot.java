@@ -0,0 +1,333 @@
+package com.neuralvault.api.service;
+
+import com.neuralvault.api.entity.AiTool;
+import com.neuralvault.api.search.Bm25Index;
+import com.neuralvault.api.search.PrefixIndex;
+import com.neuralvault.api.search.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Vista inmutable del catalogo de herramientas. Se construye una sola vez por
+ * version y se comparte entre hilos sin sincronizacion.
+ * <p>
+ * Cada herramienta lleva la version en la que cambio por ultima vez, para que los
+ * resultados cacheados solo se invaliden cuando cambia la herramienta que devuelven.
+ */
+public final class CatalogSnapshot {
+
+    public static final String PROMPT_HEADER = "Available AI tools:\n";
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private final long version;
+    private final long fingerprint;
+    private final List<AiTool> tools;
+    private final Map<String, AiTool> byId;
+    private final Map<AiTool.Category, List<AiTool>> byCategory;
+    private final String promptPrefix;
+    private final String[] promptLines;
+    private final Bm25Index searchIndex;
+    private final PrefixIndex suggestIndex;
+    private final CatalogFacets facets;
+    private final Map<String, ToolStamp> stamps;
+    private final long expansionVersion;
+
+    // Huella del contenido de una herramienta y version del catalogo en que cambio por ultima vez
+    private record ToolStamp(long fingerprint, long version) {}
+
+    private CatalogSnapshot(long version, long fingerprint, List<AiTool> tools,
+                            Map<String, AiTool> byId,
+                            Map<AiTool.Category, List<AiTool>> byCategory,
+                            String promptPrefix, String[] promptLines,
+                            Bm25Index searchIndex, PrefixIndex suggestIndex, CatalogFacets facets,
+                            Map<String, ToolStamp> stamps, long expansionVersion) {
+        this.version = version;
+        this.fingerprint = fingerprint;
+        this.tools = tools;
+        this.byId = byId;
+        this.byCategory = byCategory;
+        this.promptPrefix = promptPrefix;
+        this.promptLines = promptLines;
+        this.searchIndex = searchIndex;
+        this.suggestIndex = suggestIndex;
+        this.facets = facets;
+        this.stamps = stamps;
+        this.expansionVersion = expansionVersion;
+    }
+
+    public static CatalogSnapshot empty() {
+        return build(0, List.of());
+    }
+
+    public static CatalogSnapshot build(long version, List<AiTool> source) {
+        return build(version, source, null);
+    }
+
+    /**
+     * @param previous snapshot anterior, o {@code null}; las herramientas que no cambiaron
+     *                 conservan la version en la que cambiaron por ultima vez
+     */
+    public static CatalogSnapshot build(long version, List<AiTool> source, CatalogSnapshot previous) {
+        List<AiTool> sorted = new ArrayList<>(source.size());
+        for (AiTool tool : source) {
+            sorted.add(copyOf(tool));
+        }
+        sorted.sort(Comparator.comparing(AiTool::getId));
+
+        Map<String, AiTool> byId = new HashMap<>(sorted.size() * 2);
+        Map<AiTool.Category, List<AiTool>> byCategory = new EnumMap<>(AiTool.Category.class);
+        String[] promptLines = new String[sorted.size()];
+        List<List<String>> documents = new ArrayList<>(sorted.size());
+        PrefixIndex.Builder suggestions = PrefixIndex.builder();
+        Map<String, ToolStamp> stamps = new HashMap<>(sorted.size() * 2);
+        long expansionVersion = previous == null ? version : previous.expansionVersion;
+
+        for (int i = 0; i < sorted.size(); i++) {
+            AiTool tool = sorted.get(i);
+            byId.put(tool.getId(), tool);
+            byCategory.computeIfAbsent(tool.getCategory(), c -> new ArrayList<>()).add(tool);
+            promptLines[i] = "- " + tool.getId() + ": " + tool.getSpecialty();
+            documents.add(searchTerms(tool));
+            // Autocompletado: el nombre pesa mas que el id, y este mas que los tags
+            suggestions.add(i, tool.getName(), 3)
+                    .add(i, tool.getId(), 2)
+                    .add(i, String.join(" ", tool.getTags()), 1);
+
+            long toolFingerprint = mixTool(FNV_OFFSET, tool);
+            ToolStamp before = previous == null ? null : previous.stamps.get(tool.getId());
+            if (before != null && before.fingerprint() == toolFingerprint) {
+                stamps.put(tool.getId(), before);
+            } else {
+                stamps.put(tool.getId(), new ToolStamp(toolFingerprint, version));
+                expansionVersion = version;
+            }
+        }
+        byCategory.replaceAll((category, list) -> List.copyOf(list));
+
+        return new CatalogSnapshot(
+            version,
+            fingerprintOf(sorted),
+            List.copyOf(sorted),
+            Collections.unmodifiableMap(byId),
+            Collections.unmodifiableMap(byCategory),
+            PROMPT_HEADER + String.join("\n", promptLines),
+            promptLines,
+            Bm25Index.build(documents),
+            suggestions.build(),
+            CatalogFacets.build(sorted),
+            Collections.unmodifiableMap(stamps),
+            expansionVersion
+        );
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Hash del contenido del catalogo. A diferencia de {@link #version()} es
+     * estable entre reinicios mientras los datos no cambien.
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Huella del contenido de una herramienta, estable entre reinicios; 0 si no existe.
+     */
+    public long toolFingerprint(String id) {
+        ToolStamp stamp = stamps.get(id);
+        return stamp == null ? 0 : stamp.fingerprint();
+    }
+
+    /**
+     * Version en la que la herramienta se anadio o cambio por ultima vez; un resultado
+     * calculado con una version anterior ya no es valido. Long.MAX_VALUE si no existe.
+     */
+    public long toolVersion(String id) {
+        ToolStamp stamp = stamps.get(id);
+        return stamp == null ? Long.MAX_VALUE : stamp.version();
+    }
+
+    /**
+     * Ultima version en la que se anadio o cambio alguna herramienta: a partir de ella
+     * una consulta sin coincidencias podria tenerla.
+     */
+    public long expansionVersion() {
+        return expansionVersion;
+    }
+
+    public List<AiTool> tools() {
+        return tools;
+    }
+
+    /**
+     * Pagina por clave: hasta {@code limit} herramientas con id estrictamente mayor que
+     * {@code afterId} (o desde el principio si es {@code null}), en orden de id.
+     */
+    public List<AiTool> pageAfter(String afterId, int limit) {
+        int from = ordinalAfter(afterId);
+        return tools.subList(from, Math.min(tools.size(), from + limit));
+    }
+
+    /**
+     * Primer ordinal cuyo id es estrictamente mayor que {@code afterId}; 0 si es {@code null}.
+     */
+    public int ordinalAfter(String afterId) {
+        if (afterId == null) {
+            return 0;
+        }
+        int low = 0;
+        int high = tools.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tools.get(mid).getId().compareTo(afterId) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Indices de facetas (categoria, precio y tags) sobre los ordinales de {@link #tools()}.
+     */
+    public CatalogFacets facets() {
+        return facets;
+    }
+
+    /**
+     * Posicion de la herramienta en {@link #tools()}, o -1 si no existe.
+     */
+    public int ordinalOf(String id) {
+        int ordinal = ordinalAfter(id) - 1;
+        return ordinal >= 0 && tools.get(ordinal).getId().equals(id) ? ordinal : -1;
+    }
+
+    public Optional<AiTool> findById(String id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    public boolean contains(String id) {
+        return byId.containsKey(id);
+    }
+
+    public List<AiTool> byCategory(AiTool.Category category) {
+        return byCategory.getOrDefault(category, List.of());
+    }
+
+    public String promptPrefix() {
+        return promptPrefix;
+    }
+
+    public String promptLine(int ordinal) {
+        return promptLines[ordinal];
+    }
+
+    /**
+     * Ordinales (posiciones en {@link #tools()}) de las herramientas mas relevantes
+     * para la consulta segun BM25. Puede devolver menos de {@code limit} o ninguno.
+     */
+    public int[] rank(String query, int limit) {
+        return searchIndex.search(TextNormalizer.tokenize(query), limit);
+    }
+
+    /**
+     * Ordinales de las herramientas cuyo nombre, id o tags empiezan por las palabras
+     * escritas, para autocompletado (sin acentos ni mayusculas).
+     */
+    public int[] suggest(String query, int limit) {
+        return suggestIndex.search(query, limit);
+    }
+
+    public AiTool get(int ordinal) {
+        return tools.get(ordinal);
+    }
+
+    public int size() {
+        return tools.size();
+    }
+
+    public boolean isEmpty() {
+        return tools.isEmpty();
+    }
+
+    // Copia desacoplada de la sesion JPA para que el snapshot no comparta colecciones de Hibernate
+    private static AiTool copyOf(AiTool tool) {
+        return AiTool.builder()
+                .id(tool.getId())
+                .name(tool.getName())
+                .specialty(tool.getSpecialty())
+                .description(tool.getDescription())
+                .pricing(tool.getPricing())
+                .url(tool.getUrl())
+                .icon(tool.getIcon())
+                .category(tool.getCategory())
+                .tags(tool.getTags() == null ? List.of() : List.copyOf(tool.getTags()))
+                .build();
+    }
+
+    // Nombre y tags pesan mas que la descripcion repitiendo sus terminos
+    private static List<String> searchTerms(AiTool tool) {
+        List<String> terms = new ArrayList<>();
+        List<String> nameTerms = TextNormalizer.tokenize(tool.getName() + " " + tool.getId());
+        for (int i = 0; i < 3; i++) {
+            terms.addAll(nameTerms);
+        }
+        List<String> weighted = TextNormalizer.tokenize(tool.getSpecialty() + " " + String.join(" ", tool.getTags()));
+        terms.addAll(weighted);
+        terms.addAll(weighted);
+        terms.addAll(TextNormalizer.tokenize(tool.getDescription()));
+        return terms;
+    }
+
+    private static long fingerprintOf(List<AiTool> tools) {
+        long hash = FNV_OFFSET;
+        for (AiTool tool : tools) {
+            hash = mixTool(hash, tool);
+        }
+        return hash;
+    }
+
+    private static long mixTool(long hash, AiTool tool) {
+        hash = mix(hash, tool.getId());
+        hash = mix(hash, tool.getName());
+        hash = mix(hash, tool.getSpecialty());
+        hash = mix(hash, tool.getDescription());
+        hash = mix(hash, tool.getPricing());
+        hash = mix(hash, tool.getUrl());
+        hash = mix(hash, tool.getIcon());
+        hash = mix(hash, tool.getCategory() == null ? null : tool.getCategory().name());
+        // La coleccion de tags no tiene orden fijo en la base de datos: se ordena para que
+        // la huella no cambie solo porque las filas lleguen en otro orden
+        String[] tags = tool.getTags().toArray(new String[0]);
+        Arrays.sort(tags);
+        for (String tag : tags) {
+            hash = mix(hash, tag);
+        }
+        return hash;
+    }
+
+    // FNV-1a de 64 bits sobre los caracteres, con separador para distinguir campos vacios
+    private static long mix(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+        }
+        hash ^= 0x1F;
+        hash *= 0x100000001b3L;
+        return hash;
+    }
+}
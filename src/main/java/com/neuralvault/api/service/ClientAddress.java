@@ -0,0 +1,208 @@
+package com.neuralvault.api.service;
+
+/**
+ * Direccion IPv4 o IPv6 como dos longs (128 bits). Las IPv4 se guardan como
+ * IPv4-mapped ({@code ::ffff:a.b.c.d}), asi ambas formas de la misma IP son iguales.
+ * <p>
+ * El parseo es manual: {@code InetAddress.getByName} resolveria nombres por DNS si una
+ * cabecera trae un host en lugar de una IP.
+ */
+public record ClientAddress(long high, long low) {
+
+    /** Cliente sin direccion reconocible: todos comparten la misma entrada. */
+    public static final ClientAddress UNKNOWN = new ClientAddress(0, 0);
+
+    private static final long IPV4_MAPPED = 0xFFFFL << 32;
+
+    /**
+     * Parsea una IP tal como llega en {@code X-Forwarded-For} o {@code getRemoteAddr()}:
+     * admite puerto ({@code 1.2.3.4:80}, {@code [::1]:80}) y zona ({@code fe80::1%eth0}).
+     * Devuelve {@code null} si no es una IP valida.
+     */
+    public static ClientAddress parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        String value = text.trim();
+        if (value.startsWith("[")) {
+            int end = value.indexOf(']');
+            if (end < 0) {
+                return null;
+            }
+            value = value.substring(1, end);
+        }
+
+        int firstColon = value.indexOf(':');
+        if (firstColon < 0) {
+            long v4 = parseIpv4(value, 0, value.length());
+            return v4 < 0 ? null : new ClientAddress(0, IPV4_MAPPED | v4);
+        }
+        if (firstColon == value.lastIndexOf(':') && value.indexOf('.') >= 0) {
+            // IPv4 con puerto
+            long v4 = parseIpv4(value, 0, firstColon);
+            return v4 < 0 ? null : new ClientAddress(0, IPV4_MAPPED | v4);
+        }
+
+        int zone = value.indexOf('%');
+        return parseIpv6(zone < 0 ? value : value.substring(0, zone));
+    }
+
+    public boolean isIpv4() {
+        return high == 0 && (low & 0xFFFFFFFF00000000L) == IPV4_MAPPED;
+    }
+
+    @Override
+    public String toString() {
+        if (isIpv4()) {
+            return ((low >>> 24) & 0xFF) + "." + ((low >>> 16) & 0xFF) + "." + ((low >>> 8) & 0xFF) + "." + (low & 0xFF);
+        }
+        int[] groups = new int[8];
+        for (int i = 0; i < 4; i++) {
+            groups[i] = (int) (high >>> (48 - 16 * i)) & 0xFFFF;
+            groups[i + 4] = (int) (low >>> (48 - 16 * i)) & 0xFFFF;
+        }
+        // Comprime la racha de ceros mas larga (RFC 5952)
+        int bestStart = -1;
+        int bestLength = 1;
+        for (int i = 0; i < 8; ) {
+            int j = i;
+            while (j < 8 && groups[j] == 0) {
+                j++;
+            }
+            if (j - i > bestLength) {
+                bestStart = i;
+                bestLength = j - i;
+            }
+            i = j == i ? i + 1 : j;
+        }
+        StringBuilder text = new StringBuilder(39);
+        for (int i = 0; i < 8; i++) {
+            if (i == bestStart) {
+                text.append("::");
+                i += bestLength - 1;
+                continue;
+            }
+            if (!text.isEmpty() && text.charAt(text.length() - 1) != ':') {
+                text.append(':');
+            }
+            text.append(Integer.toHexString(groups[i]));
+        }
+        return text.toString();
+    }
+
+    // Devuelve los 32 bits de la IPv4, o -1 si no es valida
+    private static long parseIpv4(String text, int from, int to) {
+        long address = 0;
+        int octets = 0;
+        int i = from;
+        while (i < to) {
+            int value = 0;
+            int digits = 0;
+            while (i < to && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+                value = value * 10 + (text.charAt(i) - '0');
+                digits++;
+                i++;
+            }
+            if (digits == 0 || digits > 3 || value > 255) {
+                return -1;
+            }
+            address = (address << 8) | value;
+            octets++;
+            if (i < to) {
+                if (text.charAt(i) != '.' || octets == 4) {
+                    return -1;
+                }
+                i++;
+                if (i == to) {
+                    return -1;
+                }
+            }
+        }
+        return octets == 4 ? address : -1;
+    }
+
+    private static ClientAddress parseIpv6(String text) {
+        int[] groups = new int[8];
+        int count = 0;
+        int compressAt = -1;
+        int i = 0;
+        int length = text.length();
+
+        if (text.startsWith("::")) {
+            compressAt = 0;
+            i = 2;
+        } else if (text.startsWith(":")) {
+            return null;
+        }
+
+        while (i < length) {
+            if (count == 8) {
+                return null;
+            }
+            int end = i;
+            while (end < length && text.charAt(end) != ':') {
+                end++;
+            }
+            if (end == i) {
+                return null;
+            }
+            if (end == length && text.indexOf('.', i) >= 0) {
+                // Ultimos 32 bits en notacion IPv4 (::ffff:1.2.3.4)
+                long v4 = parseIpv4(text, i, end);
+                if (v4 < 0 || count > 6) {
+                    return null;
+                }
+                groups[count++] = (int) (v4 >>> 16);
+                groups[count++] = (int) (v4 & 0xFFFF);
+                i = end;
+                break;
+            }
+            if (end - i > 4) {
+                return null;
+            }
+            int value = 0;
+            for (int k = i; k < end; k++) {
+                int digit = Character.digit(text.charAt(k), 16);
+                if (digit < 0) {
+                    return null;
+                }
+                value = (value << 4) | digit;
+            }
+            groups[count++] = value;
+            i = end;
+            if (i < length) {
+                i++;
+                if (i < length && text.charAt(i) == ':') {
+                    if (compressAt >= 0) {
+                        return null;
+                    }
+                    compressAt = count;
+                    i++;
+                } else if (i == length) {
+                    return null;
+                }
+            }
+        }
+
+        if (compressAt >= 0) {
+            if (count > 7) {
+                return null;
+            }
+            int shift = 8 - count;
+            System.arraycopy(groups, compressAt, groups, compressAt + shift, count - compressAt);
+            for (int k = compressAt; k < compressAt + shift; k++) {
+                groups[k] = 0;
+            }
+        } else if (count != 8) {
+            return null;
+        }
+
+        long high = 0;
+        long low = 0;
+        for (int k = 0; k < 4; k++) {
+            high = (high << 16) | groups[k];
+            low = (low << 16) | groups[k + 4];
+        }
+        return new ClientAddress(high, low);
+    }
+}
@@ -0,0 +1,413 @@
+package com.neuralvault.api.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estado por cliente (token bucket, puntuacion de sospecha con decaimiento y bloqueo) en una tabla de
+ * direccionamiento abierto con claves IP de 128 bits como longs, sin Strings ni objetos
+ * por entrada. Cada slot ocupa {@value #STRIDE} longs.
+ * <p>
+ * La tabla tiene un tope fijo de entradas: con muchas IPs rotativas la memoria no crece,
+ * se expulsan los clientes inactivos mas antiguos. Esta
+ * dividida en segmentos con su propio cerrojo, y cada escritura barre unos pocos slots
+ * del segmento para retirar entradas caducadas sin un hilo ni temporizadores por entrada.
+ */
+@Slf4j
+@Component
+public class ClientStateTable {
+
+    /** Token bucket con recarga por intervalos: {@code refillTokens} cada {@code refillIntervalMs}. */
+    public record Limit(int capacity, int refillTokens, long refillIntervalMs) {}
+
+    public record Consumption(boolean consumed, int remaining, long millisToWait) {}
+
+    public record Stats(int entries, int maxEntries, long evictions, long expirations) {}
+
+    private static final int SEGMENTS = 64;
+    private static final int SEGMENT_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(SEGMENTS);
+
+    // Slots barridos por escritura y candidatos examinados al expulsar
+    private static final int SWEEP_STEP = 4;
+    private static final int EVICTION_SAMPLE = 16;
+
+    // Disposicion de cada slot. SEEN == 0 marca un slot libre
+    private static final int HIGH = 0;
+    private static final int LOW = 1;
+    private static final int SEEN = 2;
+    private static final int REFILLED_AT = 3;
+    private static final int COUNTERS = 4;      // tokens (32 bits altos) | sospecha (32 bits bajos)
+    private static final int BLOCKED_UNTIL = 5;
+    private static final int SUSPECTED_AT = 6;  // ultima vez que subio la sospecha
+    private static final int STRIDE = 7;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final int maxEntries;
+    private final long idleMillis;
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public ClientStateTable(@Value("${ratelimit.clients.max-entries:100000}") int maxEntries,
+                            @Value("${ratelimit.clients.idle-minutes:30}") long idleMinutes) {
+        int perSegment = Math.max(1, (maxEntries + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        this.maxEntries = perSegment * SEGMENTS;
+        this.idleMillis = TimeUnit.MINUTES.toMillis(idleMinutes);
+        log.info("Client state table: {} entries max ({} KB), idle expiry {} min",
+                this.maxEntries, (long) segments[0].slots.length * Long.BYTES * SEGMENTS / 1024, idleMinutes);
+    }
+
+    /**
+     * Consume {@code tokens} del bucket del cliente si hay suficientes. Un cliente nuevo
+     * empieza con el bucket lleno.
+     */
+    public Consumption tryConsume(ClientAddress client, int tokens, Limit limit) {
+        long now = System.currentTimeMillis();
+        long hash = hash(client);
+        Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            segment.sweep(now, SWEEP_STEP);
+            int slot = segment.findOrInsert(client, hash, now);
+            long[] slots = segment.slots;
+
+            long refilledAt = slots[slot + REFILLED_AT];
+            long counters = slots[slot + COUNTERS];
+            int available;
+            if (refilledAt == 0) {
+                available = limit.capacity();
+                refilledAt = now;
+            } else {
+                // El limite puede cambiar entre peticiones (p. ej. al pasar a un tramo mas estricto)
+                available = Math.min(tokens(counters), limit.capacity());
+                long intervals = (now - refilledAt) / limit.refillIntervalMs();
+                if (intervals > 0) {
+                    available = (int) Math.min(limit.capacity(), available + intervals * limit.refillTokens());
+                    refilledAt += intervals * limit.refillIntervalMs();
+                }
+            }
+
+            boolean consumed = available >= tokens;
+            long wait = 0;
+            if (consumed) {
+                available -= tokens;
+            } else {
+                long intervalsNeeded = (tokens - available + limit.refillTokens() - 1) / limit.refillTokens();
+                wait = refilledAt + intervalsNeeded * limit.refillIntervalMs() - now;
+            }
+            slots[slot + REFILLED_AT] = refilledAt;
+            slots[slot + COUNTERS] = counters(available, score(counters));
+            return new Consumption(consumed, available, wait);
+        }
+    }
+
+    /**
+     * Solo lectura: no crea entrada para clientes desconocidos. Un bloqueo vencido se
+     * levanta y reinicia la sospecha acumulada.
+     */
+    public boolean isBlocked(ClientAddress client) {
+        long now = System.currentTimeMillis();
+        long hash = hash(client);
+        Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            int slot = segment.find(client, hash);
+            if (slot < 0) {
+                return false;
+            }
+            long[] slots = segment.slots;
+            long blockedUntil = slots[slot + BLOCKED_UNTIL];
+            if (blockedUntil == 0) {
+                return false;
+            }
+            if (blockedUntil > now) {
+                return true;
+            }
+            slots[slot + BLOCKED_UNTIL] = 0;
+            slots[slot + COUNTERS] = counters(tokens(slots[slot + COUNTERS]), 0);
+            return false;
+        }
+    }
+
+    public void block(ClientAddress client, long untilMillis) {
+        long now = System.currentTimeMillis();
+        long hash = hash(client);
+        Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            segment.sweep(now, SWEEP_STEP);
+            int slot = segment.findOrInsert(client, hash, now);
+            segment.slots[slot + BLOCKED_UNTIL] = untilMillis;
+        }
+    }
+
+    /**
+     * Suma puntos de sospecha y devuelve el total antes de aplicar el tope {@code maxScore},
+     * que es lo que se guarda. Antes de sumar, la puntuacion pierde un punto por cada
+     * {@code decayMillis} transcurrido desde la ultima vez que subio.
+     */
+    public int addSuspicion(ClientAddress client, int points, int maxScore, long decayMillis) {
+        long now = System.currentTimeMillis();
+        long hash = hash(client);
+        Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            segment.sweep(now, SWEEP_STEP);
+            int slot = segment.findOrInsert(client, hash, now);
+            long[] slots = segment.slots;
+            long counters = slots[slot + COUNTERS];
+            int score = decayed(score(counters), slots[slot + SUSPECTED_AT], now, decayMillis) + points;
+            slots[slot + COUNTERS] = counters(tokens(counters), Math.min(score, maxScore));
+            slots[slot + SUSPECTED_AT] = now;
+            return score;
+        }
+    }
+
+    /**
+     * Pone la sospecha a cero. Solo lectura si ya lo estaba o el cliente no existe.
+     */
+    public void resetSuspicion(ClientAddress client) {
+        long hash = hash(client);
+        Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            int slot = segment.find(client, hash);
+            if (slot >= 0) {
+                long counters = segment.slots[slot + COUNTERS];
+                if (score(counters) != 0) {
+                    segment.slots[slot + COUNTERS] = counters(tokens(counters), 0);
+                }
+            }
+        }
+    }
+
+    public int suspicionScore(ClientAddress client, long decayMillis) {
+        long now = System.currentTimeMillis();
+        long hash = hash(client);
+        Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            int slot = segment.find(client, hash);
+            return slot < 0 ? 0 : decayed(score(segment.slots[slot + COUNTERS]), segment.slots[slot + SUSPECTED_AT], now, decayMillis);
+        }
+    }
+
+    /**
+     * Clientes con un bloqueo vigente. Recorre la tabla entera: solo para informes.
+     */
+    public int blockedCount() {
+        long now = System.currentTimeMillis();
+        int blocked = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                long[] slots = segment.slots;
+                for (int slot = 0; slot < slots.length; slot += STRIDE) {
+                    if (slots[slot + SEEN] != 0 && slots[slot + BLOCKED_UNTIL] > now) {
+                        blocked++;
+                    }
+                }
+            }
+        }
+        return blocked;
+    }
+
+    public Stats stats() {
+        int entries = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                entries += segment.size;
+            }
+        }
+        return new Stats(entries, maxEntries, evictions.sum(), expirations.sum());
+    }
+
+    // Barrido completo periodico: libera memoria aunque no lleguen peticiones
+    @Scheduled(fixedDelayString = "${ratelimit.clients.sweep-interval-ms:60000}")
+    public void sweepAll() {
+        long now = System.currentTimeMillis();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                // Los borrados no avanzan el cursor: con dos vueltas se revisa todo
+                segment.sweep(now, segment.capacity() * 2);
+            }
+        }
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> SEGMENT_SHIFT)];
+    }
+
+    // Finalizador de MurmurHash3: los bits altos eligen segmento y los bajos el slot
+    private static long hash(ClientAddress client) {
+        return hash(client.high(), client.low());
+    }
+
+    private static long hash(long high, long low) {
+        long h = high * 0x9E3779B97F4A7C15L ^ low;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long counters(int tokens, int score) {
+        return ((long) tokens << 32) | (score & 0xFFFFFFFFL);
+    }
+
+    private static int tokens(long counters) {
+        return (int) (counters >> 32);
+    }
+
+    private static int score(long counters) {
+        return (int) counters;
+    }
+
+    private static int decayed(int score, long suspectedAt, long now, long decayMillis) {
+        if (score == 0 || suspectedAt == 0) {
+            return score;
+        }
+        return (int) Math.max(0, score - (now - suspectedAt) / decayMillis);
+    }
+
+    /**
+     * Segmento con sondeo lineal y borrado por desplazamiento hacia atras (sin lapidas).
+     * Todos los metodos se llaman con el cerrojo del segmento tomado.
+     */
+    private final class Segment {
+
+        final long[] slots;
+        final int mask;
+        final int maxEntries;
+        int size;
+        int sweepCursor;
+
+        Segment(int maxEntries) {
+            // Factor de carga maximo de 0.75
+            int capacity = Integer.highestOneBit(Math.max(2, maxEntries * 4 / 3) * 2 - 1);
+            this.slots = new long[capacity * STRIDE];
+            this.mask = capacity - 1;
+            this.maxEntries = maxEntries;
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        // Posicion (ya multiplicada por STRIDE) del cliente, o -1
+        int find(ClientAddress client, long hash) {
+            int index = (int) hash & mask;
+            while (true) {
+                int slot = index * STRIDE;
+                if (slots[slot + SEEN] == 0) {
+                    return -1;
+                }
+                if (slots[slot + HIGH] == client.high() && slots[slot + LOW] == client.low()) {
+                    return slot;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        int findOrInsert(ClientAddress client, long hash, long now) {
+            int slot = find(client, hash);
+            if (slot >= 0) {
+                slots[slot + SEEN] = now;
+                return slot;
+            }
+            if (size >= maxEntries) {
+                evictOne(now);
+            }
+            int index = (int) hash & mask;
+            while (slots[index * STRIDE + SEEN] != 0) {
+                index = (index + 1) & mask;
+            }
+            slot = index * STRIDE;
+            slots[slot + HIGH] = client.high();
+            slots[slot + LOW] = client.low();
+            slots[slot + SEEN] = now;
+            slots[slot + REFILLED_AT] = 0;
+            slots[slot + COUNTERS] = 0;
+            slots[slot + BLOCKED_UNTIL] = 0;
+            slots[slot + SUSPECTED_AT] = 0;
+            size++;
+            return slot;
+        }
+
+        // Caducada: sin bloqueo vigente e inactiva mas de idleMillis
+        boolean isExpired(int slot, long now) {
+            return slots[slot + BLOCKED_UNTIL] <= now && now - slots[slot + SEEN] > idleMillis;
+        }
+
+        void sweep(long now, int steps) {
+            for (int i = 0; i < steps && size > 0; i++) {
+                int slot = sweepCursor * STRIDE;
+                if (slots[slot + SEEN] != 0 && isExpired(slot, now)) {
+                    // El borrado puede traer otra entrada a este slot: se revisa sin avanzar
+                    removeAt(sweepCursor);
+                    expirations.increment();
+                } else {
+                    sweepCursor = (sweepCursor + 1) & mask;
+                }
+            }
+        }
+
+        // Expulsion por muestreo: la entrada menos reciente sin bloqueo vigente de una muestra
+        void evictOne(long now) {
+            int victim = -1;
+            boolean victimBlocked = true;
+            int examined = 0;
+            int index = sweepCursor;
+            for (int i = 0; i <= mask && examined < EVICTION_SAMPLE; i++, index = (index + 1) & mask) {
+                int slot = index * STRIDE;
+                if (slots[slot + SEEN] == 0) {
+                    continue;
+                }
+                examined++;
+                boolean blocked = slots[slot + BLOCKED_UNTIL] > now;
+                if (victim < 0 || (victimBlocked && !blocked)
+                        || (victimBlocked == blocked && slots[slot + SEEN] < slots[victim * STRIDE + SEEN])) {
+                    victim = index;
+                    victimBlocked = blocked;
+                }
+            }
+            sweepCursor = index;
+            if (victim >= 0) {
+                if (isExpired(victim * STRIDE, now)) {
+                    expirations.increment();
+                } else {
+                    evictions.increment();
+                }
+                removeAt(victim);
+            }
+        }
+
+        void removeAt(int index) {
+            int hole = index;
+            int next = index;
+            while (true) {
+                next = (next + 1) & mask;
+                int slot = next * STRIDE;
+                if (slots[slot + SEEN] == 0) {
+                    break;
+                }
+                int home = (int) hash(slots[slot + HIGH], slots[slot + LOW]) & mask;
+                // Se mueve al hueco si su posicion ideal no esta entre el hueco y donde esta
+                boolean stays = hole <= next
+                        ? hole < home && home <= next
+                        : hole < home || home <= next;
+                if (!stays) {
+                    System.arraycopy(slots, slot, slots, hole * STRIDE, STRIDE);
+                    hole = next;
+                }
+            }
+            int slot = hole * STRIDE;
+            for (int i = 0; i < STRIDE; i++) {
+                slots[slot + i] = 0;
+            }
+            size--;
+        }
+    }
+}
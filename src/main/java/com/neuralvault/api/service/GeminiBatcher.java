@@ -0,0 +1,230 @@
+package com.neuralvault.api.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Agrupa las consultas que fallan en cache durante una ventana corta y las envia
+ * a Gemini en un unico prompt numerado; cada llamada consume una sola unidad de
+ * la cuota diaria sin importar cuantas consultas lleve.
+ * <p>
+ * En un lote el texto de un usuario puede influir en la respuesta de otro, y esa
+ * respuesta se cachea para todos. Por eso solo se agrupan consultas que el sanitizer
+ * considera limpias, y una respuesta que no esta entre los candidatos de su propia
+ * consulta se descarta y la consulta se repite sola.
+ */
+@Slf4j
+@Component
+public class GeminiBatcher {
+
+    // "3: cursor", "3. cursor", "3) cursor"
+    private static final Pattern ANSWER_LINE = Pattern.compile("^\\s*(\\d+)\\s*[:.)-]\\s*(.+?)\\s*$", Pattern.MULTILINE);
+
+    private final GeminiClient geminiClient;
+    private final RecommendationPromptBuilder promptBuilder;
+    private final ScheduledExecutorService scheduler;
+
+    @Value("${recommendation.batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${recommendation.batch.window-ms:5}")
+    private long windowMs;
+
+    @Value("${recommendation.batch.max-size:8}")
+    private int maxSize;
+
+    private final LongAdder batchCalls = new LongAdder();
+    private final LongAdder batchedQueries = new LongAdder();
+    private final LongAdder rejectedAnswers = new LongAdder();
+
+    private final Object lock = new Object();
+    private List<Item> pending = new ArrayList<>();
+    private CatalogSnapshot pendingCatalog;
+
+    private record Item(String query, int[] candidates, CompletableFuture<String> answer) {}
+
+    public record Stats(long batchCalls, long batchedQueries, long rejectedAnswers) {}
+
+    public GeminiBatcher(GeminiClient geminiClient, RecommendationPromptBuilder promptBuilder) {
+        this.geminiClient = geminiClient;
+        this.promptBuilder = promptBuilder;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gemini-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param batchable {@code false} si la consulta es sospechosa: va sola en su prompt
+     * @return la respuesta de Gemini para esta consulta (solo el id o "null"), o
+     *         {@code null} si la llamada fallo
+     */
+    public CompletableFuture<String> submit(CatalogSnapshot catalog, String query, int[] candidates, boolean batchable) {
+        if (!enabled || !batchable) {
+            return geminiClient.generateContentAsync(promptBuilder.build(catalog, query, candidates));
+        }
+
+        Item item = new Item(query, candidates, new CompletableFuture<>());
+        List<Item> ready = null;
+        CatalogSnapshot readyCatalog = null;
+
+        synchronized (lock) {
+            // Los ordinales solo son comparables dentro del mismo snapshot
+            if (!pending.isEmpty() && pendingCatalog != catalog) {
+                ready = pending;
+                readyCatalog = pendingCatalog;
+                pending = new ArrayList<>();
+            }
+            pending.add(item);
+            pendingCatalog = catalog;
+
+            if (pending.size() == 1) {
+                scheduler.schedule(this::flushPending, windowMs, TimeUnit.MILLISECONDS);
+            } else if (pending.size() >= maxSize) {
+                ready = pending;
+                readyCatalog = catalog;
+                pending = new ArrayList<>();
+            }
+        }
+
+        dispatch(readyCatalog, ready);
+        return item.answer();
+    }
+
+    public Stats stats() {
+        return new Stats(batchCalls.sum(), batchedQueries.sum(), rejectedAnswers.sum());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void flushPending() {
+        List<Item> ready;
+        CatalogSnapshot catalog;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            ready = pending;
+            catalog = pendingCatalog;
+            pending = new ArrayList<>();
+        }
+        dispatch(catalog, ready);
+    }
+
+    private void dispatch(CatalogSnapshot catalog, List<Item> items) {
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+
+        if (items.size() == 1) {
+            Item item = items.get(0);
+            complete(geminiClient.generateContentAsync(promptBuilder.build(catalog, item.query(), item.candidates())),
+                    item);
+            return;
+        }
+
+        List<String> queries = new ArrayList<>(items.size());
+        List<int[]> candidates = new ArrayList<>(items.size());
+        for (Item item : items) {
+            queries.add(item.query());
+            candidates.add(item.candidates());
+        }
+
+        batchCalls.increment();
+        batchedQueries.add(items.size());
+        log.debug("Sending batch of {} queries to Gemini", items.size());
+
+        geminiClient.generateContentAsync(promptBuilder.buildBatch(catalog, queries, candidates))
+                .whenComplete((content, error) -> {
+                    if (error != null) {
+                        items.forEach(item -> item.answer().completeExceptionally(error));
+                        return;
+                    }
+                    String[] answers = parseAnswers(content, items.size());
+                    for (int i = 0; i < items.size(); i++) {
+                        Item item = items.get(i);
+                        if (answers[i] == null || isCandidate(catalog, answers[i], item.candidates())) {
+                            item.answer().complete(answers[i]);
+                            continue;
+                        }
+                        // Posible influencia de otra consulta del lote: se pregunta de nuevo por separado
+                        rejectedAnswers.increment();
+                        log.warn("Discarding batched answer '{}' outside the candidates of query: {}", answers[i], item.query());
+                        complete(geminiClient.generateContentAsync(promptBuilder.build(catalog, item.query(), item.candidates())),
+                                item);
+                    }
+                });
+    }
+
+    /**
+     * Solo caracteres validos en un id, como llega en la respuesta de Gemini.
+     */
+    static String answerId(String content) {
+        return content.trim().replaceAll("[^a-zA-Z0-9_-]", "");
+    }
+
+    /**
+     * @return {@code true} si la respuesta es "null" o el id de uno de los candidatos
+     */
+    static boolean isCandidate(CatalogSnapshot catalog, String content, int[] candidates) {
+        String id = answerId(content);
+        if ("null".equalsIgnoreCase(id)) {
+            return true;
+        }
+        int ordinal = catalog.ordinalOf(id);
+        if (ordinal < 0) {
+            return false;
+        }
+        for (int candidate : candidates) {
+            if (candidate == ordinal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void complete(CompletableFuture<String> call, Item item) {
+        call.whenComplete((content, error) -> {
+            if (error != null) {
+                item.answer().completeExceptionally(error);
+            } else {
+                item.answer().complete(content);
+            }
+        });
+    }
+
+    // Respuestas ausentes o fuera de rango quedan en null y se tratan como fallo
+    private static String[] parseAnswers(String content, int count) {
+        String[] answers = new String[count];
+        if (content == null) {
+            return answers;
+        }
+        Matcher matcher = ANSWER_LINE.matcher(content);
+        while (matcher.find()) {
+            if (matcher.group(1).length() > 4) {
+                continue;
+            }
+            int index = Integer.parseInt(matcher.group(1)) - 1;
+            if (index >= 0 && index < count && answers[index] == null) {
+                answers[index] = matcher.group(2);
+            }
+        }
+        return answers;
+    }
+}
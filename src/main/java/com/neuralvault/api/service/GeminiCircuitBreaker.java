@@ -107,6 +107,10 @@ public class GeminiCircuitBreaker {
         return (int) (DAILY_REQUEST_LIMIT - dailyRequestCount.get());
     }
 
+    public boolean isDailyLimitReached() {
+        return !checkDailyLimit();
+    }
+
     public void resetDailyCounter() {
         Instant now = Instant.now();
         if (now.minusSeconds(86400).isAfter(dayStart)) {
@@ -2,11 +2,25 @@ package com.neuralvault.api.service;
 
 import com.google.genai.Client;
 import com.google.genai.types.GenerateContentResponse;
+import com.neuralvault.api.exception.UpstreamUnavailableException;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
 @Slf4j
 @Component
 public class GeminiClient {
@@ -17,11 +31,41 @@ public class GeminiClient {
     @Value("${gemini.api.model:gemini-2.5-flash-lite}")
     private String model;
 
+    // Deadline per call; the task is cancelled when it expires
+    @Value("${gemini.api.timeout-ms:10000}")
+    private long callTimeoutMs;
+
+    // Hedged requests: a backup call once the first exceeds the recent latency percentile
+    @Value("${gemini.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${gemini.hedge.percentile:0.95}")
+    private double hedgePercentile;
+
+    @Value("${gemini.hedge.min-delay-ms:300}")
+    private long hedgeMinDelayMs;
+
+    @Value("${gemini.hedge.min-samples:20}")
+    private long hedgeMinSamples;
+
+    @Value("${gemini.hedge.min-remaining-quota:300}")
+    private int hedgeMinRemainingQuota;
+
     private final GeminiCircuitBreaker circuitBreaker;
+    private final ThreadPoolTaskExecutor executor;
+    private final LatencyHistogram latencies = new LatencyHistogram(TimeUnit.MINUTES.toMillis(5));
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
     private Client client;
 
-    public GeminiClient(GeminiCircuitBreaker circuitBreaker) {
+    private record Call(CompletableFuture<String> result, Future<?> task) {}
+
+    public record HedgeStats(long sent, long won) {}
+
+    public GeminiClient(GeminiCircuitBreaker circuitBreaker,
+                        @Qualifier("geminiExecutor") ThreadPoolTaskExecutor executor) {
         this.circuitBreaker = circuitBreaker;
+        this.executor = executor;
     }
 
     @PostConstruct
@@ -47,23 +91,148 @@ public class GeminiClient {
         }
     }
 
+    /**
+     * Ejecuta la llamada en el pool dedicado. Completa con {@code null} ante errores
+     * o si vence el deadline, y falla con {@link UpstreamUnavailableException} si el pool esta lleno.
+     * Con hedging activo, si la llamada tarda mas que el percentil configurado se lanza
+     * una segunda y gana la primera respuesta valida.
+     */
+    public CompletableFuture<String> generateContentAsync(String prompt) {
+        Call primary;
+        try {
+            primary = submit(prompt);
+        } catch (TaskRejectedException e) {
+            log.warn("Gemini executor saturated ({} active, {} queued), rejecting call",
+                    executor.getActiveCount(), executor.getThreadPoolExecutor().getQueue().size());
+            return CompletableFuture.failedFuture(
+                    new UpstreamUnavailableException("Recommendation service is busy, try again shortly", e));
+        }
+
+        long hedgeDelay = hedgeDelayMs();
+        if (hedgeDelay < 0) {
+            return primary.result();
+        }
+
+        CompletableFuture<String> winner = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        attach(primary, winner, outstanding, false);
+
+        CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.MILLISECONDS).execute(() -> {
+            if (winner.isDone() || circuitBreaker.getRemainingDailyRequests() < hedgeMinRemainingQuota) {
+                return;
+            }
+            outstanding.incrementAndGet();
+            try {
+                Call hedge = submit(prompt);
+                hedgesSent.increment();
+                log.debug("Gemini call slower than {}ms, sending hedged request", hedgeDelay);
+                // The losing call is left to finish so the circuit breaker sees its real outcome
+                attach(hedge, winner, outstanding, true);
+            } catch (TaskRejectedException e) {
+                log.debug("Skipping hedged request, Gemini executor is saturated");
+                if (outstanding.decrementAndGet() == 0) {
+                    winner.complete(null);
+                }
+            }
+        });
+        return winner;
+    }
+
+    public LatencyHistogram getLatencyHistogram() {
+        return latencies;
+    }
+
+    public HedgeStats getHedgeStats() {
+        return new HedgeStats(hedgesSent.sum(), hedgesWon.sum());
+    }
+
+    private Call submit(String prompt) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        // Una sola muestra de latencia por llamada: la del plazo si vence antes de que termine
+        AtomicBoolean sampled = new AtomicBoolean();
+        Future<?> task = executor.submit(() -> {
+            if (!result.isDone()) {
+                result.complete(generateContent(prompt, elapsedMs -> {
+                    if (sampled.compareAndSet(false, true)) {
+                        latencies.record(elapsedMs);
+                    }
+                }));
+            }
+        });
+
+        CompletableFuture<String> withDeadline = result
+                .orTimeout(callTimeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof TimeoutException) {
+                        // The interrupted call records its own failure in the circuit breaker
+                        task.cancel(true);
+                        if (sampled.compareAndSet(false, true)) {
+                            latencies.record(callTimeoutMs);
+                        }
+                        log.warn("Gemini call exceeded {}ms deadline, cancelled", callTimeoutMs);
+                        return null;
+                    }
+                    throw e instanceof CompletionException ce ? ce : new CompletionException(e);
+                });
+        return new Call(withDeadline, task);
+    }
+
+    // La primera respuesta no nula gana; si todas fallan se completa con la ultima
+    private void attach(Call call, CompletableFuture<String> winner, AtomicInteger outstanding, boolean hedge) {
+        call.result().whenComplete((value, error) -> {
+            if (value != null) {
+                if (winner.complete(value) && hedge) {
+                    hedgesWon.increment();
+                }
+            } else if (outstanding.decrementAndGet() == 0) {
+                if (error != null) {
+                    winner.completeExceptionally(error);
+                } else {
+                    winner.complete(null);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return espera antes de lanzar la peticion de respaldo, o -1 si no se debe hacer hedging
+     */
+    private long hedgeDelayMs() {
+        if (!hedgeEnabled || latencies.count() < hedgeMinSamples) {
+            return -1;
+        }
+        // Cada peticion extra consume cuota diaria: sin margen suficiente se desactiva
+        if (circuitBreaker.getRemainingDailyRequests() < hedgeMinRemainingQuota) {
+            return -1;
+        }
+        return Math.max(hedgeMinDelayMs, latencies.percentile(hedgePercentile));
+    }
+
     public String generateContent(String prompt) {
+        return generateContent(prompt, latencies::record);
+    }
+
+    // onCallFinished recibe la duracion de cada llamada a la API, tambien de las fallidas:
+    // un timeout o un error lento debe subir el umbral de hedging igual que un acierto lento
+    private String generateContent(String prompt, LongConsumer onCallFinished) {
         if (!circuitBreaker.allowRequest()) {
             log.warn("Circuit breaker OPEN. Daily remaining: {}", circuitBreaker.getRemainingDailyRequests());
             return null;
         }
 
-        try {
-            if (client == null) {
-                initializeClient();
-            }
+        if (client == null) {
+            initializeClient();
+        }
 
-            if (client == null) {
-                log.error("Gemini client not initialized");
-                circuitBreaker.recordFailure();
-                return null;
-            }
+        if (client == null) {
+            log.error("Gemini client not initialized");
+            circuitBreaker.recordFailure();
+            return null;
+        }
 
+        long start = System.currentTimeMillis();
+        try {
             GenerateContentResponse response = client.models.generateContent(model, prompt, null);
 
             if (response != null && response.text() != null) {
@@ -80,6 +249,8 @@ public class GeminiClient {
             log.error("Gemini API error: {} - {}", e.getClass().getSimpleName(), e.getMessage());
             circuitBreaker.recordFailure();
             return null;
+        } finally {
+            onCallFinished.accept(System.currentTimeMillis() - start);
         }
     }
 
@@ -3,89 +3,59 @@ package com.neuralvault.api.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Bloqueos temporales y puntuacion de sospecha por IP. El estado vive en
+ * {@link ClientStateTable}, acotado en memoria y con caducidad propia.
+ * <p>
+ * La sospecha solo cuenta rechazos seguidos: una peticion admitida la pone a cero y,
+ * sin nuevas infracciones, baja un punto cada {@value #SUSPICION_DECAY_MINUTES} minutos.
+ */
 @Slf4j
 @Component
 public class IpBlocklistService {
 
-    // IPs temporarily blocked due to suspicious activity
-    private final ConcurrentHashMap<String, BlockedIp> blockedIps = new ConcurrentHashMap<>();
-
-    // IPs with suspicious behavior score
-    private final ConcurrentHashMap<String, Integer> suspicionScores = new ConcurrentHashMap<>();
-
     private static final int BLOCK_DURATION_MINUTES = 60;
     private static final int SUSPICION_THRESHOLD = 5;
-    private static final int MAX_Suspicion_SCORE = 10;
-
-    public record BlockedIp(String ip, Instant blockedAt, String reason) {}
+    private static final int MAX_SUSPICION_SCORE = 10;
+    private static final int SUSPICION_DECAY_MINUTES = 5;
+    private static final long SUSPICION_DECAY_MILLIS = TimeUnit.MINUTES.toMillis(SUSPICION_DECAY_MINUTES);
 
-    public boolean isBlocked(String ip) {
-        BlockedIp blocked = blockedIps.get(ip);
-        if (blocked == null) {
-            return false;
-        }
+    private final ClientStateTable clientStateTable;
 
-        // Check if block has expired
-        Instant expiryTime = blocked.blockedAt().plusSeconds(BLOCK_DURATION_MINUTES * 60);
-        if (Instant.now().isAfter(expiryTime)) {
-            blockedIps.remove(ip);
-            suspicionScores.remove(ip);
-            log.info("IP {} has been unblocked after {} minutes", ip, BLOCK_DURATION_MINUTES);
-            return false;
-        }
+    public IpBlocklistService(ClientStateTable clientStateTable) {
+        this.clientStateTable = clientStateTable;
+    }
 
-        return true;
+    public boolean isBlocked(ClientAddress ip) {
+        return clientStateTable.isBlocked(ip);
     }
 
-    public void blockIp(String ip, String reason) {
-        blockedIps.put(ip, new BlockedIp(ip, Instant.now(), reason));
+    public void blockIp(ClientAddress ip, String reason) {
+        clientStateTable.block(ip, System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(BLOCK_DURATION_MINUTES));
         log.warn("IP {} has been blocked for {} minutes. Reason: {}", ip, BLOCK_DURATION_MINUTES, reason);
     }
 
-    public void addSuspicionScore(String ip, int points) {
-        int newScore = suspicionScores.merge(ip, points, Integer::sum);
-        
+    public void addSuspicionScore(ClientAddress ip, int points) {
+        int newScore = clientStateTable.addSuspicion(ip, points, MAX_SUSPICION_SCORE, SUSPICION_DECAY_MILLIS);
+
         if (newScore >= SUSPICION_THRESHOLD) {
             blockIp(ip, "Accumulated suspicion score: " + newScore);
         } else if (newScore > 0) {
             log.debug("IP {} suspicion score increased to {}", ip, newScore);
         }
-
-        // Cap the score
-        if (newScore > MAX_Suspicion_SCORE) {
-            suspicionScores.put(ip, MAX_Suspicion_SCORE);
-        }
-    }
-
-    public void decreaseSuspicionScore(String ip) {
-        suspicionScores.computeIfPresent(ip, (k, v) -> {
-            int newValue = v - 1;
-            return newValue > 0 ? newValue : null;
-        });
     }
 
-    public Set<String> getBlockedIps() {
-        return blockedIps.keySet();
+    public void resetSuspicionScore(ClientAddress ip) {
+        clientStateTable.resetSuspicion(ip);
     }
 
-    public int getSuspicionScore(String ip) {
-        return suspicionScores.getOrDefault(ip, 0);
+    public int getBlockedCount() {
+        return clientStateTable.blockedCount();
     }
 
-    public void cleanupExpiredBlocks() {
-        Instant now = Instant.now();
-        blockedIps.entrySet().removeIf(entry -> {
-            Instant expiryTime = entry.getValue().blockedAt().plusSeconds(BLOCK_DURATION_MINUTES * 60);
-            boolean expired = now.isAfter(expiryTime);
-            if (expired) {
-                suspicionScores.remove(entry.getKey());
-            }
-            return expired;
-        });
+    public int getSuspicionScore(ClientAddress ip) {
+        return clientStateTable.suspicionScore(ip, SUSPICION_DECAY_MILLIS);
     }
 }
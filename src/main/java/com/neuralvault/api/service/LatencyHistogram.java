@@ -0,0 +1,106 @@
+package com.neuralvault.api.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Histograma de latencias con buckets exponenciales (factor ~1.19) entre 1ms y ~3.5min.
+ * Mantiene la ventana actual y la anterior, de modo que los percentiles reflejan
+ * solo el trafico reciente. Registrar una muestra no bloquea ni reserva memoria.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 72;
+    private static final double GROWTH = Math.pow(2, 0.25);
+
+    private static final long[] UPPER_BOUNDS_MS = new long[BUCKETS];
+
+    static {
+        double bound = 1;
+        for (int i = 0; i < BUCKETS; i++) {
+            UPPER_BOUNDS_MS[i] = (long) Math.ceil(bound);
+            bound *= GROWTH;
+        }
+    }
+
+    private record Window(long startedAt, AtomicLongArray counts) {}
+
+    private final long windowMillis;
+    private final AtomicReference<Window> current;
+    private volatile Window previous;
+
+    public LatencyHistogram(long windowMillis) {
+        this.windowMillis = windowMillis;
+        this.current = new AtomicReference<>(new Window(System.currentTimeMillis(), new AtomicLongArray(BUCKETS)));
+        this.previous = new Window(0, new AtomicLongArray(BUCKETS));
+    }
+
+    public void record(long latencyMs) {
+        rotateIfNeeded();
+        current.get().counts().incrementAndGet(bucketOf(latencyMs));
+    }
+
+    /**
+     * @param percentile entre 0 y 1 (p.ej. 0.95)
+     * @return el limite superior del bucket que contiene el percentil, o -1 sin muestras
+     */
+    public long percentile(double percentile) {
+        rotateIfNeeded();
+        AtomicLongArray now = current.get().counts();
+        AtomicLongArray before = previous.counts();
+
+        long[] merged = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            merged[i] = now.get(i) + before.get(i);
+            total += merged[i];
+        }
+        if (total == 0) {
+            return -1;
+        }
+
+        long target = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += merged[i];
+            if (seen >= target) {
+                return UPPER_BOUNDS_MS[i];
+            }
+        }
+        return UPPER_BOUNDS_MS[BUCKETS - 1];
+    }
+
+    public long count() {
+        rotateIfNeeded();
+        long total = 0;
+        AtomicLongArray now = current.get().counts();
+        AtomicLongArray before = previous.counts();
+        for (int i = 0; i < BUCKETS; i++) {
+            total += now.get(i) + before.get(i);
+        }
+        return total;
+    }
+
+    private void rotateIfNeeded() {
+        Window window = current.get();
+        long now = System.currentTimeMillis();
+        if (now - window.startedAt() < windowMillis) {
+            return;
+        }
+        Window fresh = new Window(now, new AtomicLongArray(BUCKETS));
+        if (current.compareAndSet(window, fresh)) {
+            // Si la ventana lleva mas de dos periodos sin trafico, sus datos ya no son recientes
+            previous = now - window.startedAt() < 2 * windowMillis
+                    ? window
+                    : new Window(0, new AtomicLongArray(BUCKETS));
+        }
+    }
+
+    private static int bucketOf(long latencyMs) {
+        if (latencyMs <= 1) {
+            return 0;
+        }
+        int bucket = (int) Math.ceil(Math.log(latencyMs) / Math.log(GROWTH));
+        return Math.min(bucket, BUCKETS - 1);
+    }
+}
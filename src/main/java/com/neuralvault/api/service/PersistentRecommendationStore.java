@@ -0,0 +1,214 @@
+package com.neuralvault.api.service;
+
+import com.neuralvault.api.entity.AiTool;
+import com.neuralvault.api.entity.RecommendationCacheEntry;
+import com.neuralvault.api.repository.RecommendationCacheRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Segundo nivel del cache de recomendaciones en la base de datos. Las lecturas
+ * son read-through detras de Caffeine y corren fuera del hilo de la peticion; las
+ * escrituras se acumulan en memoria y se vuelcan en lote (write-behind), asi el
+ * camino de la peticion nunca espera por I/O.
+ * Cada fila se valida contra la huella de la herramienta que devuelve, de modo que un
+ * cambio en el catalogo solo invalida los resultados de las herramientas afectadas.
+ */
+@Slf4j
+@Component
+public class PersistentRecommendationStore {
+
+    private final RecommendationCacheRepository repository;
+
+    @Value("${recommendation.persistent.enabled:true}")
+    private boolean enabled;
+
+    @Value("${recommendation.persistent.ttl-hours:168}")
+    private long ttlHours;
+
+    // Si la base de datos no da abasto se descartan escrituras en vez de acumular memoria
+    @Value("${recommendation.persistent.max-pending-writes:5000}")
+    private int maxPendingWrites;
+
+    private final ConcurrentHashMap<String, RecommendationCacheEntry> pendingWrites = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> pendingHits = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder droppedWrites = new LongAdder();
+
+    public record Stats(long hits, long misses, long droppedWrites, int pendingWrites) {}
+
+    public record Stored(AiTool tool, long computedAt) {}
+
+    public PersistentRecommendationStore(RecommendationCacheRepository repository) {
+        this.repository = repository;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Lectura bloqueante contra la base de datos: no llamar desde un hilo del servlet.
+     *
+     * @return la herramienta guardada y cuando se calculo, si la fila sigue siendo valida
+     */
+    public Optional<Stored> lookup(String cacheKey, CatalogSnapshot catalog) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        // Una escritura aun no volcada tambien cuenta como acierto
+        RecommendationCacheEntry pending = pendingWrites.get(cacheKey);
+        Optional<Stored> stored = (pending != null ? Optional.of(pending) : findStored(cacheKey))
+                .flatMap(entry -> resolve(entry, catalog)
+                        .map(tool -> new Stored(tool, entry.getCreatedAt().toEpochMilli())));
+
+        if (stored.isPresent()) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return stored;
+    }
+
+    /**
+     * @return la herramienta de la fila, si sigue en el catalogo y no cambio desde que se guardo
+     */
+    public Optional<AiTool> resolve(RecommendationCacheEntry entry, CatalogSnapshot catalog) {
+        Long stored = entry.getToolFingerprint();
+        if (stored == null || stored != catalog.toolFingerprint(entry.getToolId())) {
+            return Optional.empty();
+        }
+        return catalog.findById(entry.getToolId());
+    }
+
+    public void save(String cacheKey, CatalogSnapshot catalog, AiTool tool) {
+        if (!enabled) {
+            return;
+        }
+        if (pendingWrites.size() >= maxPendingWrites) {
+            droppedWrites.increment();
+            return;
+        }
+        Instant now = Instant.now();
+        pendingWrites.put(cacheKey, RecommendationCacheEntry.builder()
+                .cacheKey(cacheKey)
+                .catalogFingerprint(catalog.fingerprint())
+                .toolId(tool.getId())
+                .toolFingerprint(catalog.toolFingerprint(tool.getId()))
+                .createdAt(now)
+                .expiresAt(now.plus(Duration.ofHours(ttlHours)))
+                .build());
+    }
+
+    /**
+     * Cuenta una peticion servida para la clave; alimenta el ranking de consultas populares.
+     */
+    public void recordHit(String cacheKey) {
+        if (!enabled) {
+            return;
+        }
+        LongAdder counter = pendingHits.get(cacheKey);
+        if (counter == null) {
+            if (pendingHits.size() >= maxPendingWrites) {
+                return;
+            }
+            counter = pendingHits.computeIfAbsent(cacheKey, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * Entradas no expiradas, de la mas a la menos solicitada; validar con {@link #resolve}.
+     */
+    public List<RecommendationCacheEntry> findMostPopular(int limit) {
+        return repository.findByExpiresAtAfterOrderByHitCountDesc(Instant.now(), PageRequest.of(0, limit));
+    }
+
+    // Tambien al apagar, para no perder lo pendiente en un redeploy
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${recommendation.persistent.flush-interval-ms:5000}")
+    public void flush() {
+        flushWrites();
+        flushHits();
+    }
+
+    private void flushWrites() {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+
+        List<RecommendationCacheEntry> batch = new ArrayList<>(pendingWrites.values());
+        try {
+            // Una clave existente se actualiza sin tocar hit_count (columna no actualizable)
+            repository.saveAll(batch);
+            // Solo se retiran las entradas que no cambiaron mientras se guardaban
+            batch.forEach(entry -> pendingWrites.remove(entry.getCacheKey(), entry));
+            log.debug("Persisted {} recommendation cache entries", batch.size());
+        } catch (Exception e) {
+            log.warn("Failed to persist {} recommendation cache entries: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private void flushHits() {
+        if (pendingHits.isEmpty()) {
+            return;
+        }
+        // Un solo UPDATE en lote por volcado, sin importar cuantas claves haya
+        Map<String, Long> batch = new HashMap<>(pendingHits.size() * 2);
+        for (String cacheKey : new ArrayList<>(pendingHits.keySet())) {
+            LongAdder counter = pendingHits.remove(cacheKey);
+            if (counter != null) {
+                batch.put(cacheKey, counter.sum());
+            }
+        }
+        try {
+            repository.incrementHits(batch);
+        } catch (Exception e) {
+            log.warn("Failed to persist {} recommendation hit counts: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedRate = 3600000)
+    public void purgeExpired() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = repository.deleteExpired(Instant.now());
+            if (deleted > 0) {
+                log.info("Purged {} expired recommendation cache entries", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge expired recommendation cache entries: {}", e.getMessage());
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), droppedWrites.sum(), pendingWrites.size());
+    }
+
+    private Optional<RecommendationCacheEntry> findStored(String cacheKey) {
+        try {
+            return repository.findByCacheKeyAndExpiresAtAfter(cacheKey, Instant.now());
+        } catch (Exception e) {
+            log.warn("Recommendation cache store unavailable: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
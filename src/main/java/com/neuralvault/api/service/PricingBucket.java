@@ -0,0 +1,25 @@
+package com.neuralvault.api.service;
+
+import com.neuralvault.api.search.TextNormalizer;
+
+/**
+ * Tramo de precio derivado del texto libre de {@code AiTool.pricing}
+ * ("Gratis / Open Source", "Freemium / $20/mes", "$10/mes", ...).
+ */
+public enum PricingBucket {
+    FREE,
+    FREEMIUM,
+    PAID;
+
+    public static PricingBucket of(String pricing) {
+        String text = TextNormalizer.fold(pricing);
+        boolean free = text.contains("gratis") || text.contains("free") || text.contains("open source")
+                || text.contains("open weights");
+        boolean paid = text.contains("$") || text.contains("pago") || text.contains("cost");
+
+        if (text.contains("freemium") || (free && paid)) {
+            return FREEMIUM;
+        }
+        return free ? FREE : PAID;
+    }
+}
@@ -1,93 +1,263 @@
 package com.neuralvault.api.service;
 
+import com.neuralvault.api.search.MultiPatternMatcher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Sanitiza el input del usuario para prevenir prompt injection en una sola pasada de
+ * tiempo lineal: elimina caracteres peligrosos, colapsa espacios, retira las marcas de
+ * injection y limita la longitud, y a la vez decide si la entrada es sospechosa: solo
+ * lo es si contenia marcas de injection. Los caracteres peligrosos se quitan del texto
+ * pero solo se cuentan, ya que aparecen en consultas normales ("what's", "python; java").
+ * <p>
+ * Las marcas se buscan con un automata de Aho-Corasick sobre el texto ya limpio (un
+ * {@code "sys<tem:"} tambien cuenta). Al detectar una, la salida se recorta hasta su
+ * inicio; cada caracter se escribe y se borra como mucho una vez, asi que el coste no
+ * depende de cuantas marcas haya. Sin regex ni retroceso.
+ */
 @Slf4j
 @Component
 public class PromptSanitizer {
 
-    // Patrones comunes de prompt injection
-    private static final Pattern[] INJECTION_PATTERNS = {
-        Pattern.compile("(?i)ignore.*previous.*instructions"),
-        Pattern.compile("(?i)disregard.*above"),
-        Pattern.compile("(?i)forget.*everything"),
-        Pattern.compile("(?i)you are now.*assistant"),
-        Pattern.compile("(?i)system\\s*:"),
-        Pattern.compile("(?i)developer\\s*:"),
-        Pattern.compile("(?i)user\\s*:"),
-        Pattern.compile("(?i)assistant\\s*:"),
-        Pattern.compile("<\\s*script[^>]*>", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("javascript:", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("on\\w+\\s*=", Pattern.CASE_INSENSITIVE),
-    };
+    public static final int MAX_LENGTH = 500;
 
     // Caracteres peligrosos que podrían romper la estructura del prompt
     private static final String DANGEROUS_CHARS = "<>\"'`;{}[]|\\";
+    private static final boolean[] DANGEROUS = new boolean[128];
 
-    /**
-     * Sanitiza el input del usuario para prevenir prompt injection
-     */
-    public String sanitize(String input) {
-        if (input == null || input.isEmpty()) {
-            return "";
-        }
+    // Secuencias en orden con cualquier texto entre medias ("ignore ... previous ... instructions")
+    private static final String[][] SEQUENCES = {
+        {"ignore", "previous", "instructions"},
+        {"disregard", "above"},
+        {"forget", "everything"},
+        {"you are now", "assistant"},
+    };
 
-        String sanitized = input;
+    // Marcas que se retiran por si solas; tras colapsar espacios, "\s*:" es ":" o " :"
+    private static final String[] MARKERS = {
+        "system:", "system :", "developer:", "developer :", "user:", "user :",
+        "assistant:", "assistant :", "javascript:",
+    };
 
-        // Detect and block injection patterns
-        for (Pattern pattern : INJECTION_PATTERNS) {
-            if (pattern.matcher(sanitized).find()) {
-                log.warn("Possible prompt injection attempt detected: {}", input);
-                // Replace pattern with empty string
-                sanitized = pattern.matcher(sanitized).replaceAll("");
-            }
+    // Solo cuenta justo despues de un '<' (etiqueta <script ...>)
+    private static final String SCRIPT = "script";
+
+    private static final MultiPatternMatcher MATCHER;
+    private static final int[] LENGTHS;
+    private static final long[][] SEQUENCE_BITS;
+    private static final long MARKER_MASK;
+    private static final long SCRIPT_BIT;
+
+    private final LongAdder strippedPrompts = new LongAdder();
+
+    static {
+        for (int i = 0; i < DANGEROUS_CHARS.length(); i++) {
+            DANGEROUS[DANGEROUS_CHARS.charAt(i)] = true;
         }
 
-        // Eliminar caracteres peligrosos
-        StringBuilder clean = new StringBuilder();
-        for (char c : sanitized.toCharArray()) {
-            if (DANGEROUS_CHARS.indexOf(c) == -1) {
-                clean.append(c);
+        List<String> patterns = new ArrayList<>();
+        SEQUENCE_BITS = new long[SEQUENCES.length][];
+        for (int s = 0; s < SEQUENCES.length; s++) {
+            SEQUENCE_BITS[s] = new long[SEQUENCES[s].length];
+            for (int k = 0; k < SEQUENCES[s].length; k++) {
+                SEQUENCE_BITS[s][k] = bitOf(patterns, SEQUENCES[s][k]);
             }
         }
-        sanitized = clean.toString();
+        long markers = 0;
+        for (String marker : MARKERS) {
+            markers |= bitOf(patterns, marker);
+        }
+        MARKER_MASK = markers;
+        SCRIPT_BIT = bitOf(patterns, SCRIPT);
+
+        MATCHER = MultiPatternMatcher.of(patterns);
+        LENGTHS = patterns.stream().mapToInt(String::length).toArray();
+    }
+
+    public SanitizedPrompt sanitize(String input) {
+        if (input == null || input.isEmpty()) {
+            return new SanitizedPrompt("", false);
+        }
+        Scan scan = new Scan(input.length());
+        for (int i = 0; i < input.length(); i++) {
+            scan.accept(input.charAt(i));
+        }
+        if (scan.injection) {
+            log.warn("Possible prompt injection attempt detected: {}", input);
+        }
+        if (scan.dangerous) {
+            strippedPrompts.increment();
+        }
+        return new SanitizedPrompt(scan.result(), scan.injection);
+    }
+
+    /**
+     * @return entradas de las que se quitaron caracteres peligrosos, con o sin injection
+     */
+    public long getStrippedPromptCount() {
+        return strippedPrompts.sum();
+    }
 
-        // Limit maximum length
-        if (sanitized.length() > 500) {
-            sanitized = sanitized.substring(0, 500);
-            log.debug("Input truncated to 500 characters");
+    // Un mismo patron puede aparecer en una secuencia y como marca ("assistant")
+    private static long bitOf(List<String> patterns, String pattern) {
+        int index = patterns.indexOf(pattern);
+        if (index < 0) {
+            index = patterns.size();
+            patterns.add(pattern);
         }
+        return 1L << index;
+    }
 
-        // Normalizar espacios múltiples
-        sanitized = sanitized.trim().replaceAll("\\s+", " ");
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == 0x0B;
+    }
 
-        return sanitized;
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
     }
 
     /**
-     * Verifica si el input es sospechoso de injection
+     * Estado de una pasada. Las posiciones son indices en la salida.
      */
-    public boolean isSuspicious(String input) {
-        if (input == null || input.isEmpty()) {
-            return false;
+    private static final class Scan {
+
+        final StringBuilder out;
+        int state = MultiPatternMatcher.INITIAL_STATE;
+        // Por secuencia: siguiente palabra esperada e inicio de la primera
+        final int[] stage = new int[SEQUENCES.length];
+        final int[] start = new int[SEQUENCES.length];
+        int tagAt = -1;
+        boolean inTag;
+        int wordStart = -1;
+        int wordEnd = -1;
+        boolean injection;
+        boolean dangerous;
+
+        Scan(int capacity) {
+            out = new StringBuilder(Math.min(capacity, MAX_LENGTH * 2));
         }
 
-        for (Pattern pattern : INJECTION_PATTERNS) {
-            if (pattern.matcher(input).find()) {
-                return true;
+        void accept(char c) {
+            if (inTag) {
+                // Contenido de <script ...> hasta el '>'
+                inTag = c != '>';
+                return;
+            }
+            if (c == '<') {
+                dangerous = true;
+                tagAt = out.length();
+                return;
+            }
+            if (c < 128 && DANGEROUS[c]) {
+                dangerous = true;
+                return;
+            }
+            if (c == '=' && isEventHandler()) {
+                // on\w+\s*= (onclick=, onload =)
+                injection = true;
+                cut(wordStart);
+                return;
+            }
+            if (isSpace(c)) {
+                if (out.isEmpty() || out.charAt(out.length() - 1) == ' ') {
+                    return;
+                }
+                c = ' ';
+            }
+
+            int position = out.length();
+            out.append(c);
+            if (isWordChar(c)) {
+                if (wordEnd != position) {
+                    wordStart = position;
+                }
+                wordEnd = position + 1;
+            }
+            state = MATCHER.next(state, c);
+            long found = MATCHER.matches(state);
+            if (found != 0) {
+                onMatch(found);
             }
         }
 
-        // Verificar caracteres peligrosos
-        for (char c : input.toCharArray()) {
-            if (DANGEROUS_CHARS.indexOf(c) != -1) {
-                return true;
+        private void onMatch(long found) {
+            int end = out.length();
+            int cutAt = Integer.MAX_VALUE;
+
+            for (long bits = found & MARKER_MASK; bits != 0; bits &= bits - 1) {
+                cutAt = Math.min(cutAt, end - LENGTHS[Long.numberOfTrailingZeros(bits)]);
             }
+            if ((found & SCRIPT_BIT) != 0 && tagAt >= 0) {
+                int scriptStart = end - SCRIPT.length();
+                if (scriptStart == tagAt || (scriptStart == tagAt + 1 && out.charAt(tagAt) == ' ')) {
+                    cutAt = Math.min(cutAt, tagAt);
+                    inTag = true;
+                }
+            }
+            for (int s = 0; s < SEQUENCES.length; s++) {
+                long[] keywords = SEQUENCE_BITS[s];
+                if (stage[s] == keywords.length) {
+                    // Ya completa: como el ".*" es voraz, cada nueva palabra final amplia el corte
+                    if ((found & keywords[keywords.length - 1]) != 0) {
+                        cutAt = Math.min(cutAt, start[s]);
+                    }
+                    continue;
+                }
+                long expected = keywords[stage[s]];
+                if ((found & expected) != 0) {
+                    if (stage[s] == 0) {
+                        start[s] = end - LENGTHS[Long.numberOfTrailingZeros(expected)];
+                    }
+                    if (++stage[s] == keywords.length) {
+                        cutAt = Math.min(cutAt, start[s]);
+                    }
+                }
+            }
+
+            if (cutAt != Integer.MAX_VALUE) {
+                injection = true;
+                cut(cutAt);
+            }
+        }
+
+        private boolean isEventHandler() {
+            int length = out.length();
+            boolean adjacent = wordEnd == length || (wordEnd == length - 1 && out.charAt(length - 1) == ' ');
+            return adjacent && wordStart >= 0 && wordEnd - wordStart >= 3
+                    && (out.charAt(wordStart) | 0x20) == 'o' && (out.charAt(wordStart + 1) | 0x20) == 'n';
         }
 
-        return false;
+        // Recorta la salida y olvida lo que dependia del texto eliminado
+        private void cut(int position) {
+            out.setLength(position);
+            state = MultiPatternMatcher.INITIAL_STATE;
+            tagAt = -1;
+            wordStart = -1;
+            wordEnd = -1;
+            for (int s = 0; s < SEQUENCES.length; s++) {
+                // Una secuencia completa que empieza justo aqui sigue viva para ampliar su corte
+                boolean complete = stage[s] == SEQUENCE_BITS[s].length;
+                if (stage[s] > 0 && (complete ? start[s] > position : start[s] >= position)) {
+                    stage[s] = 0;
+                }
+            }
+        }
+
+        String result() {
+            int length = out.length();
+            if (length > MAX_LENGTH) {
+                log.debug("Input truncated to {} characters", MAX_LENGTH);
+                length = MAX_LENGTH;
+            }
+            while (length > 0 && out.charAt(length - 1) == ' ') {
+                length--;
+            }
+            return out.substring(0, length);
+        }
     }
 }
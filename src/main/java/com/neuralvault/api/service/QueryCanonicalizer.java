@@ -0,0 +1,83 @@
+package com.neuralvault.api.service;
+
+import com.neuralvault.api.search.TextNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Reduce una consulta a su forma canonica para usarla como clave de cache:
+ * "IDE para Python", "ide para  python!" y "python IDE" producen la misma clave,
+ * pero "IDE para C" e "IDE for C#" no.
+ */
+@Slf4j
+@Component
+public class QueryCanonicalizer {
+
+    // Sinonimos por defecto (ya normalizados): termino -> forma canonica
+    private static final Map<String, String> DEFAULT_SYNONYMS = Map.ofEntries(
+        Map.entry("photo", "foto"),
+        Map.entry("picture", "foto"),
+        Map.entry("image", "imagen"),
+        Map.entry("imagene", "imagen"),
+        Map.entry("music", "musica"),
+        Map.entry("song", "cancion"),
+        Map.entry("cancione", "cancion"),
+        Map.entry("code", "codigo"),
+        Map.entry("coding", "codigo"),
+        Map.entry("programar", "codigo"),
+        Map.entry("programming", "codigo"),
+        Map.entry("write", "escribir"),
+        Map.entry("writing", "escribir"),
+        Map.entry("search", "buscar")
+        // "editor" no se reduce a "ide": "editor de video" e "ide video" son consultas distintas
+    );
+
+    private final Map<String, String> synonyms;
+
+    /**
+     * @param extraSynonyms pares "termino=canonico" separados por coma, p.ej. "pic=foto,tune=musica"
+     */
+    public QueryCanonicalizer(@Value("${recommendation.canonical.synonyms:}") String extraSynonyms) {
+        Map<String, String> merged = new HashMap<>(DEFAULT_SYNONYMS);
+        for (String pair : extraSynonyms.split(",")) {
+            int separator = pair.indexOf('=');
+            if (separator <= 0 || separator == pair.length() - 1) {
+                continue;
+            }
+            List<String> from = TextNormalizer.keyTokens(pair.substring(0, separator));
+            List<String> to = TextNormalizer.keyTokens(pair.substring(separator + 1));
+            if (from.size() == 1 && to.size() == 1) {
+                merged.put(from.get(0), to.get(0));
+            } else {
+                log.warn("Ignoring invalid synonym entry: '{}'", pair);
+            }
+        }
+        this.synonyms = Map.copyOf(merged);
+    }
+
+    public String canonicalize(String query) {
+        if (query == null) {
+            return "";
+        }
+
+        // Sin descartar terminos cortos: "c" o "c#" cambian la consulta aunque BM25 los ignore
+        List<String> tokens = TextNormalizer.keyTokens(query);
+        if (tokens.isEmpty()) {
+            // Solo stopwords o simbolos: usar el texto plegado y compactado
+            return TextNormalizer.fold(query).replaceAll("\\s+", " ").trim();
+        }
+
+        // Orden alfabetico y sin duplicados: el orden de las palabras no cambia la clave
+        TreeSet<String> terms = new TreeSet<>();
+        for (String token : tokens) {
+            terms.add(synonyms.getOrDefault(token, token));
+        }
+        return String.join(" ", terms);
+    }
+}
@@ -0,0 +1,49 @@
+package com.neuralvault.api.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Clave compacta de 128 bits para una consulta canonica: los primeros 16 bytes de su
+ * SHA-256. Ocupa lo mismo sea cual sea la longitud de la consulta; su forma hexadecimal
+ * es la clave de la tabla persistente.
+ */
+public record QueryKey(long high, long low) {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    public static QueryKey of(String canonicalQuery) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonicalQuery.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            return new QueryKey(buffer.getLong(), buffer.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * @return la clave, o vacio si el texto no es una clave hexadecimal (filas persistidas
+     *         con el formato anterior)
+     */
+    public static Optional<QueryKey> parse(String hex) {
+        if (hex == null || hex.length() != 32) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new QueryKey(HEX.fromHexDigits(hex, 0, 16), HEX.fromHexDigits(hex, 16, 32)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return HEX.toHexDigits(high) + HEX.toHexDigits(low);
+    }
+}
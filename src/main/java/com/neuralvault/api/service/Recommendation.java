@@ -0,0 +1,28 @@
+package com.neuralvault.api.service;
+
+import com.neuralvault.api.entity.AiTool;
+
+import java.util.Optional;
+
+/**
+ * Resultado de {@link RecommendationService#recommend}. {@code STALE} indica que el valor
+ * supero su TTL y se sirve porque Gemini no esta disponible para recalcularlo.
+ */
+public record Recommendation(Optional<AiTool> tool, Freshness freshness) {
+
+    public enum Freshness {
+        FRESH, STALE;
+
+        public String headerValue() {
+            return name().toLowerCase();
+        }
+    }
+
+    static Recommendation fresh(Optional<AiTool> tool) {
+        return new Recommendation(tool, Freshness.FRESH);
+    }
+
+    static Recommendation stale(Optional<AiTool> tool) {
+        return new Recommendation(tool, Freshness.STALE);
+    }
+}
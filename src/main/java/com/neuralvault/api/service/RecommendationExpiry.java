@@ -0,0 +1,61 @@
+package com.neuralvault.api.service;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Politica de expiracion por entrada del cache de recomendaciones: los aciertos se
+ * conservan durante todo el horizonte de valores caducados, los "sin coincidencia" un
+ * TTL largo propio y los errores y los "sin candidatos" locales solo unos segundos, con jitter para que las claves
+ * populares no vuelvan a Gemini todas a la vez.
+ */
+public class RecommendationExpiry implements Expiry<Object, Object> {
+
+    private final long retentionNanos;
+    private final long noMatchNanos;
+    private final long errorNanos;
+    private final long budgetExhaustedNanos;
+    private final double jitter;
+
+    public RecommendationExpiry(Duration retention, Duration noMatchTtl, Duration errorTtl,
+                                Duration budgetExhaustedTtl, double jitter) {
+        this.retentionNanos = retention.toNanos();
+        this.noMatchNanos = noMatchTtl.toNanos();
+        this.errorNanos = errorTtl.toNanos();
+        this.budgetExhaustedNanos = budgetExhaustedTtl.toNanos();
+        this.jitter = jitter;
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        if (!(value instanceof CachedRecommendation cached)) {
+            return retentionNanos;
+        }
+        return switch (cached.outcome()) {
+            case HIT -> retentionNanos;
+            case NO_MATCH -> noMatchNanos;
+            case NO_CANDIDATES, UPSTREAM_ERROR -> withJitter(errorNanos);
+            case BUDGET_EXHAUSTED -> withJitter(budgetExhaustedNanos);
+        };
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+
+    private long withJitter(long nanos) {
+        if (jitter <= 0) {
+            return nanos;
+        }
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+        return (long) (nanos * factor);
+    }
+}
@@ -0,0 +1,62 @@
+package com.neuralvault.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Clave del cache "recommendations": hash de 128 bits de la forma canonica de la consulta.
+ * Ademas mantiene un registro sombra de las claves antiguas
+ * ({@code query.toLowerCase().trim()}) para comparar el hit ratio de ambos esquemas.
+ */
+@Component
+public class RecommendationKeyGenerator {
+
+    private final QueryCanonicalizer canonicalizer;
+
+    private final Cache<QueryKey, Boolean> legacyKeys;
+    private final LongAdder legacyHits = new LongAdder();
+    private final LongAdder legacyMisses = new LongAdder();
+
+    public RecommendationKeyGenerator(QueryCanonicalizer canonicalizer,
+                                      @Value("${cache.ttl.minutes:1440}") long retentionMinutes,
+                                      @Value("${cache.max-weight-mb:64}") long maxWeightMb) {
+        this.canonicalizer = canonicalizer;
+        // Misma retencion y mismas entradas que el cache real (acotado por memoria en
+        // CacheConfig) para que la comparacion sea justa; las claves se guardan como hash
+        this.legacyKeys = Caffeine.newBuilder()
+                .maximumSize(maxWeightMb * 1024 * 1024 / RecommendationWeigher.ENTRY_BYTES)
+                .expireAfterWrite(retentionMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    public QueryKey keyFor(String query) {
+        recordLegacyLookup(QueryKey.of(query.toLowerCase().trim()));
+        return peekKey(query);
+    }
+
+    /**
+     * Misma clave que {@link #keyFor} sin contar en la comparativa con las claves antiguas.
+     */
+    public QueryKey peekKey(String query) {
+        return QueryKey.of(canonicalizer.canonicalize(query));
+    }
+
+    private void recordLegacyLookup(QueryKey legacyKey) {
+        if (legacyKeys.asMap().putIfAbsent(legacyKey, Boolean.TRUE) != null) {
+            legacyHits.increment();
+        } else {
+            legacyMisses.increment();
+        }
+    }
+
+    public double getLegacyHitRatio() {
+        long hits = legacyHits.sum();
+        long total = hits + legacyMisses.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
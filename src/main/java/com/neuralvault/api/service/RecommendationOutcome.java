@@ -0,0 +1,27 @@
+package com.neuralvault.api.service;
+
+/**
+ * Resultado tipado de una recomendacion. Solo HIT y NO_MATCH son respuestas definitivas
+ * de Gemini; los errores se cachean brevemente y nunca reemplazan un valor valido.
+ * NO_CANDIDATES es un "sin coincidencia" decidido en local por el pre-ranking, sin
+ * preguntar a Gemini: se responde igual pero se cachea tan poco como un error, porque
+ * una parafrasis o un sinonimo sin terminos en comun tambien acaba aqui.
+ */
+public enum RecommendationOutcome {
+    HIT,
+    NO_MATCH,
+    NO_CANDIDATES,
+    UPSTREAM_ERROR,
+    BUDGET_EXHAUSTED;
+
+    public boolean isDefinitive() {
+        return this == HIT || this == NO_MATCH;
+    }
+
+    /**
+     * @return {@code true} si se responde al cliente (con o sin herramienta) en vez de como fallo
+     */
+    public boolean isAnswer() {
+        return isDefinitive() || this == NO_CANDIDATES;
+    }
+}
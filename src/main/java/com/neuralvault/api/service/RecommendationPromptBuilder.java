@@ -0,0 +1,110 @@
+package com.neuralvault.api.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Construye el prompt de recomendacion. En catalogos grandes solo se envian a
+ * Gemini los candidatos mejor puntuados por BM25, de modo que el tamano del
+ * prompt no crece con el catalogo.
+ */
+@Slf4j
+@Component
+public class RecommendationPromptBuilder {
+
+    private static final String INSTRUCTIONS = "\n\nRespond with ONLY the best tool ID or 'null'. No explanations.";
+
+    private static final String BATCH_INSTRUCTIONS = "\n\nFor EACH numbered request respond with one line "
+            + "in the form '<number>: <best tool ID or null>'. No explanations.";
+
+    @Value("${recommendation.prerank.top-k:20}")
+    private int topK;
+
+    // Sin coincidencias lexicas se envia el catalogo completo solo si es pequeno
+    @Value("${recommendation.prerank.fallback-max-tools:100}")
+    private int fallbackMaxTools;
+
+    /**
+     * Ordinales de las herramientas a incluir en el prompt para la consulta.
+     * Un array vacio indica que ningun candidato es relevante.
+     */
+    public int[] candidates(CatalogSnapshot catalog, String query) {
+        if (catalog.size() <= topK) {
+            return allOrdinals(catalog);
+        }
+
+        int[] ranked = catalog.rank(query, topK);
+        if (ranked.length == 0 && catalog.size() <= fallbackMaxTools) {
+            log.debug("No lexical candidates for query, sending full catalog ({} tools)", catalog.size());
+            return allOrdinals(catalog);
+        }
+        log.debug("Pre-ranked {} of {} tools for prompt", ranked.length, catalog.size());
+        return ranked;
+    }
+
+    /**
+     * @return el prompt, o {@code null} si ningun candidato es relevante para la consulta
+     */
+    public String build(CatalogSnapshot catalog, String query) {
+        int[] candidates = candidates(catalog, query);
+        if (candidates.length == 0) {
+            return null;
+        }
+        return build(catalog, query, candidates);
+    }
+
+    public String build(CatalogSnapshot catalog, String query, int[] candidates) {
+        BitSet selected = new BitSet(catalog.size());
+        for (int ordinal : candidates) {
+            selected.set(ordinal);
+        }
+        return toolsContext(catalog, selected) + "\n\nUser needs: " + query + INSTRUCTIONS;
+    }
+
+    /**
+     * Un unico prompt para varias consultas: la union de sus candidatos y las
+     * consultas numeradas desde 1.
+     */
+    public String buildBatch(CatalogSnapshot catalog, List<String> queries, List<int[]> candidates) {
+        BitSet selected = new BitSet(catalog.size());
+        for (int[] ordinals : candidates) {
+            for (int ordinal : ordinals) {
+                selected.set(ordinal);
+            }
+        }
+
+        StringBuilder prompt = new StringBuilder(toolsContext(catalog, selected));
+        prompt.append("\n\nUser requests:");
+        for (int i = 0; i < queries.size(); i++) {
+            prompt.append('\n').append(i + 1).append(". ").append(queries.get(i));
+        }
+        return prompt.append(BATCH_INSTRUCTIONS).toString();
+    }
+
+    private String toolsContext(CatalogSnapshot catalog, BitSet selected) {
+        if (selected.cardinality() == catalog.size()) {
+            return catalog.promptPrefix();
+        }
+
+        StringBuilder context = new StringBuilder(CatalogSnapshot.PROMPT_HEADER.length() + selected.cardinality() * 64);
+        context.append(CatalogSnapshot.PROMPT_HEADER);
+        boolean first = true;
+        for (int ordinal = selected.nextSetBit(0); ordinal >= 0; ordinal = selected.nextSetBit(ordinal + 1)) {
+            if (!first) {
+                context.append('\n');
+            }
+            context.append(catalog.promptLine(ordinal));
+            first = false;
+        }
+        return context.toString();
+    }
+
+    private static int[] allOrdinals(CatalogSnapshot catalog) {
+        return IntStream.range(0, catalog.size()).toArray();
+    }
+}
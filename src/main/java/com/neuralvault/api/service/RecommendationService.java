@@ -1,111 +1,427 @@
 package com.neuralvault.api.service;
 
 import com.neuralvault.api.entity.AiTool;
-import com.neuralvault.api.repository.AiToolRepository;
-import lombok.RequiredArgsConstructor;
+import com.neuralvault.api.event.CatalogRefreshedEvent;
+import com.neuralvault.api.exception.UpstreamUnavailableException;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class RecommendationService {
 
-    private final AiToolRepository aiToolRepository;
-    private final GeminiClient geminiClient;
+    private final CatalogService catalogService;
+    private final GeminiBatcher geminiBatcher;
+    private final GeminiCircuitBreaker circuitBreaker;
+    private final RecommendationPromptBuilder promptBuilder;
+    private final RecommendationKeyGenerator keyGenerator;
+    private final PromptSanitizer promptSanitizer;
+    private final SemanticCache semanticCache;
+    private final PersistentRecommendationStore persistentStore;
+    private final ThreadPoolTaskExecutor geminiExecutor;
+    private final Cache cache;
 
-    @Cacheable(value = "recommendations", key = "#query.toLowerCase().trim()")
-    public Optional<AiTool> recommend(String query) {
+    // Coalesce concurrent cache misses for the same key into a single Gemini call
+    private final RequestCoalescer<QueryKey, CachedRecommendation> coalescer;
+
+    // Past the soft TTL the entry is still served but refreshed in the background
+    private final long softTtlMs;
+
+    // Past the hard TTL the entry is recomputed, and only served if Gemini is unavailable
+    private final long hardTtlMs;
+
+    private final LongAdder refreshAheadCalls = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder suspiciousPrompts = new LongAdder();
+    private final Map<RecommendationOutcome, LongAdder> outcomes = new EnumMap<>(RecommendationOutcome.class);
+
+    public record FreshnessStats(long refreshAheadCalls, long staleServed) {}
+
+    public RecommendationService(CatalogService catalogService,
+                                 GeminiBatcher geminiBatcher,
+                                 GeminiCircuitBreaker circuitBreaker,
+                                 RecommendationPromptBuilder promptBuilder,
+                                 RecommendationKeyGenerator keyGenerator,
+                                 PromptSanitizer promptSanitizer,
+                                 SemanticCache semanticCache,
+                                 PersistentRecommendationStore persistentStore,
+                                 @Qualifier("geminiExecutor") ThreadPoolTaskExecutor geminiExecutor,
+                                 CacheManager cacheManager,
+                                 @Value("${recommendation.coalesce.timeout-ms:15000}") long coalesceTimeoutMs,
+                                 @Value("${recommendation.cache.soft-ttl-minutes:20}") long softTtlMinutes,
+                                 @Value("${recommendation.cache.hard-ttl-minutes:30}") long hardTtlMinutes) {
+        this.catalogService = catalogService;
+        this.geminiBatcher = geminiBatcher;
+        this.circuitBreaker = circuitBreaker;
+        this.promptBuilder = promptBuilder;
+        this.keyGenerator = keyGenerator;
+        this.promptSanitizer = promptSanitizer;
+        this.semanticCache = semanticCache;
+        this.persistentStore = persistentStore;
+        this.geminiExecutor = geminiExecutor;
+        this.cache = cacheManager.getCache("recommendations");
+        this.coalescer = new RequestCoalescer<>(Duration.ofMillis(coalesceTimeoutMs));
+        this.softTtlMs = TimeUnit.MINUTES.toMillis(softTtlMinutes);
+        this.hardTtlMs = TimeUnit.MINUTES.toMillis(hardTtlMinutes);
+        for (RecommendationOutcome outcome : RecommendationOutcome.values()) {
+            outcomes.put(outcome, new LongAdder());
+        }
+    }
+
+    /**
+     * Cache hits complete immediately on the calling thread; misses complete when
+     * Gemini answers on its dedicated executor, so no servlet thread waits for it.
+     * An expired entry is returned as {@link Recommendation.Freshness#STALE} when it
+     * cannot be recomputed because Gemini is unavailable; without one, upstream failures
+     * complete with {@link UpstreamUnavailableException} instead of an empty result.
+     * Prompts the sanitizer flags as suspicious are answered but never cached, persisted
+     * or batched with other users' queries.
+     */
+    public CompletableFuture<Recommendation> recommend(String query) {
         long startTime = System.currentTimeMillis();
 
-        // Basic validation only - max length
-        if (query == null || query.trim().isEmpty()) {
-            return Optional.empty();
+        // Una sola pasada: limpia, colapsa espacios, quita marcas de injection y limita a 500
+        SanitizedPrompt prompt = promptSanitizer.sanitize(query);
+        if (prompt.isEmpty()) {
+            return CompletableFuture.completedFuture(Recommendation.fresh(Optional.empty()));
         }
+        String finalQuery = prompt.text();
 
-        String sanitizedQuery = query.trim();
+        // La clave sale del mismo texto que llega al prompt
+        QueryKey key = keyGenerator.keyFor(finalQuery);
+        if (prompt.suspicious()) {
+            suspiciousPrompts.increment();
+        } else {
+            persistentStore.recordHit(key.toString());
+        }
 
-        if (sanitizedQuery.length() > 500) {
-            log.warn("Query too long ({} chars), truncating to 500", sanitizedQuery.length());
-            sanitizedQuery = sanitizedQuery.substring(0, 500);
+        CatalogSnapshot catalog = catalogService.current();
+        CachedRecommendation cached = cache.get(key, CachedRecommendation.class);
+        if (cached != null && !cached.isValidFor(catalog)) {
+            // La herramienta cambio desde que se calculo: ni fresco ni como valor caducado
+            cache.evict(key);
+            cached = null;
+        }
+        if (cached != null) {
+            switch (cached.outcome()) {
+                case NO_MATCH, NO_CANDIDATES -> {
+                    // Negativo: vive hasta su propia expiracion, sin refresco
+                    return CompletableFuture.completedFuture(served(cached.outcome(), Recommendation.fresh(Optional.empty())));
+                }
+                case UPSTREAM_ERROR, BUDGET_EXHAUSTED -> {
+                    outcomes.get(cached.outcome()).increment();
+                    return CompletableFuture.failedFuture(unavailable(cached.outcome()));
+                }
+                case HIT -> {
+                    // Solo se guarda el id: si la herramienta ya no esta en el catalogo se recalcula
+                    Optional<AiTool> tool = cached.resolve(catalog);
+                    long age = cached.ageMs(startTime);
+                    if (tool.isPresent() && age < hardTtlMs) {
+                        if (age >= softTtlMs) {
+                            refreshAhead(key, prompt, startTime);
+                        }
+                        return CompletableFuture.completedFuture(served(cached.outcome(), Recommendation.fresh(tool)));
+                    }
+                }
+            }
         }
 
-        log.info("Cache MISS - Processing recommendation request for query: {}", sanitizedQuery);
+        // Con una entrada previa hay que recalcular: los otros niveles devolverian lo mismo
+        CachedRecommendation previous = cached;
+        return load(key, prompt, startTime, previous != null)
+                .handle((result, error) -> {
+                    if (error == null && result.outcome().isAnswer()) {
+                        return served(result.outcome(), Recommendation.fresh(result.resolve(catalogService.current())));
+                    }
 
-        List<AiTool> allTools = aiToolRepository.findAll();
+                    RecommendationOutcome failure = error == null ? result.outcome() : RecommendationOutcome.UPSTREAM_ERROR;
+                    Throwable cause = error == null ? null : unwrap(error);
+                    if (cause != null && !(cause instanceof UpstreamUnavailableException || cause instanceof TimeoutException)) {
+                        throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+                    }
+                    outcomes.get(failure).increment();
 
-        if (allTools.isEmpty()) {
-            return Optional.empty();
+                    // Gemini no disponible: mejor una respuesta antigua que ninguna
+                    Optional<AiTool> stale = previous == null ? Optional.empty() : previous.resolve(catalogService.current());
+                    if (stale.isPresent()) {
+                        staleServed.increment();
+                        log.info("Serving stale recommendation ({} min old) after {} for query: {}",
+                                TimeUnit.MILLISECONDS.toMinutes(previous.ageMs(startTime)), failure, finalQuery);
+                        return Recommendation.stale(stale);
+                    }
+                    if (cause instanceof TimeoutException) {
+                        log.warn("Timed out waiting for in-flight recommendation for query: {}", finalQuery);
+                    }
+                    throw new CompletionException(cause instanceof UpstreamUnavailableException u ? u : unavailable(failure));
+                });
+    }
+
+    /**
+     * Indica si {@link #recommend} responderia desde el cache sin llamar a Gemini. No
+     * cuenta como acceso ni en las estadisticas ni para la expiracion: sirve al rate
+     * limiting para cobrar menos las peticiones baratas.
+     */
+    public boolean isCached(String query) {
+        SanitizedPrompt prompt = promptSanitizer.sanitize(query);
+        if (prompt.isEmpty()) {
+            return true;
+        }
+        if (!(cache instanceof CaffeineCache caffeineCache)) {
+            return false;
         }
+        Object value = caffeineCache.getNativeCache().policy().getIfPresentQuietly(keyGenerator.peekKey(prompt.text()));
+        if (!(value instanceof CachedRecommendation cached)) {
+            return false;
+        }
+        CatalogSnapshot catalog = catalogService.current();
+        if (!cached.isValidFor(catalog)) {
+            return false;
+        }
+        // Los errores cacheados tambien se responden sin llamar a Gemini
+        return cached.outcome() != RecommendationOutcome.HIT
+                || (cached.ageMs(System.currentTimeMillis()) < hardTtlMs && cached.resolve(catalog).isPresent());
+    }
 
-        long toolsContextStart = System.currentTimeMillis();
-        String toolsContext = allTools.stream()
-                .map(tool -> String.format("- %s: %s", tool.getId(), tool.getSpecialty()))
-                .collect(Collectors.joining("\n"));
+    /**
+     * Preloads a known answer into the cache without calling Gemini (startup warm-up).
+     * Se marca con la misma antiguedad que un acierto de la lectura persistente.
+     */
+    public void warm(QueryKey key, AiTool tool, long catalogVersion, long computedAt) {
+        cache.putIfAbsent(key, restored(tool, catalogVersion, computedAt, System.currentTimeMillis()));
+    }
 
-        // Simplified prompt - shorter, faster, cheaper
-        String promptText = String.format(
-            "Available AI tools:\n%s\n\nUser needs: %s\n\nRespond with ONLY the best tool ID or 'null'. No explanations.",
-            toolsContext, sanitizedQuery
-        );
-        log.debug("Prompt length: {} chars", promptText.length());
+    // Una respuesta persistida conserva su fecha, pero nunca parece mas antigua que el TTL
+    // blando: se sirve al momento y su primer uso dispara el refresco anticipado. Asi una
+    // fila de dias no pasa por recien calculada ni se descarta por superar el TTL duro
+    private CachedRecommendation restored(AiTool tool, long catalogVersion, long computedAt, long now) {
+        return CachedRecommendation.hit(tool, catalogVersion, Math.max(computedAt, now - softTtlMs));
+    }
 
-        try {
-            log.debug("Sending prompt to Gemini API");
+    /**
+     * Invalidacion selectiva: solo se descartan las entradas cuya herramienta cambio o
+     * desaparecio (y los "sin coincidencia" si hay herramientas nuevas); el resto sigue
+     * en cache. La comprobacion en {@link #recommend} cubre las escrituras en vuelo.
+     */
+    @EventListener
+    public void onCatalogRefreshed(CatalogRefreshedEvent event) {
+        if (event.previous() == null || !(cache instanceof CaffeineCache caffeineCache)) {
+            return;
+        }
+        CatalogSnapshot catalog = event.current();
+        Map<Object, Object> entries = caffeineCache.getNativeCache().asMap();
+        int before = entries.size();
+        entries.values().removeIf(value ->
+                value instanceof CachedRecommendation cached && !cached.isValidFor(catalog));
+        log.info("Catalog v{}: evicted {} of {} cached recommendations",
+                catalog.version(), before - entries.size(), before);
+    }
 
-            // Llamada a la API de Gemini
-            String content = geminiClient.generateContent(promptText);
+    public RequestCoalescer.Stats getCoalescingStats() {
+        return coalescer.stats();
+    }
 
-            if (content == null) {
-                log.warn("Received null response from Gemini");
-                log.info("Total request time: {}ms", System.currentTimeMillis() - startTime);
-                return Optional.empty();
-            }
+    public FreshnessStats getFreshnessStats() {
+        return new FreshnessStats(refreshAheadCalls.sum(), staleServed.sum());
+    }
+
+    /**
+     * @return consultas marcadas como sospechosas por el sanitizer desde el arranque
+     */
+    public long getSuspiciousPromptCount() {
+        return suspiciousPrompts.sum();
+    }
+
+    /**
+     * @return respuestas servidas por resultado desde el arranque
+     */
+    public Map<RecommendationOutcome, Long> getOutcomeCounts() {
+        Map<RecommendationOutcome, Long> counts = new EnumMap<>(RecommendationOutcome.class);
+        outcomes.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+        return counts;
+    }
+
+    private Recommendation served(RecommendationOutcome outcome, Recommendation recommendation) {
+        outcomes.get(outcome).increment();
+        return recommendation;
+    }
 
-            log.info("Gemini response: {}", content);
+    private static UpstreamUnavailableException unavailable(RecommendationOutcome outcome) {
+        return new UpstreamUnavailableException(outcome == RecommendationOutcome.BUDGET_EXHAUSTED
+                ? "Daily recommendation quota exhausted, try again later"
+                : "Recommendation service is temporarily unavailable, try again shortly");
+    }
+
+    // Los errores se cachean solo si no hay ya un valor: nunca pisan una respuesta valida.
+    // Lo obtenido con un prompt sospechoso no se cachea: no debe servirse a otros usuarios
+    private CompletableFuture<CachedRecommendation> load(QueryKey key, SanitizedPrompt prompt, long startTime, boolean recompute) {
+        return coalescer.execute(key, () -> computeRecommendation(key, prompt, startTime, recompute)
+                .thenApply(result -> {
+                    if (prompt.suspicious()) {
+                        return result;
+                    }
+                    if (result.outcome().isDefinitive()) {
+                        cache.put(key, result);
+                    } else {
+                        cache.putIfAbsent(key, result);
+                    }
+                    return result;
+                }));
+    }
+
+    private void refreshAhead(QueryKey key, SanitizedPrompt prompt, long startTime) {
+        refreshAheadCalls.increment();
+        load(key, prompt, startTime, true).exceptionally(e -> {
+            log.debug("Background refresh failed for query {}: {}", prompt.text(), unwrap(e).getMessage());
+            return null;
+        });
+    }
 
-            // Validación estricta de la respuesta
-            String cleanContent = content.trim();
-            
-            // Si responde null, no hay recomendación
-            if ("null".equalsIgnoreCase(cleanContent)) {
-                return Optional.empty();
+    /**
+     * @param recompute refresco o recarga de una entrada vencida: se salta el nivel
+     *                  persistente y el semantico, que contienen esta misma consulta y
+     *                  devolverian la respuesta antigua como si fuera nueva
+     */
+    private CompletableFuture<CachedRecommendation> computeRecommendation(QueryKey key, SanitizedPrompt prompt,
+                                                                          long startTime, boolean recompute) {
+        String sanitizedQuery = prompt.text();
+        log.info("Cache MISS - Processing recommendation request for query: {}", sanitizedQuery);
+
+        CatalogSnapshot catalog = catalogService.current();
+
+        // Catalogo aun sin cargar: transitorio, no es una respuesta definitiva
+        if (catalog.isEmpty()) {
+            return CompletableFuture.completedFuture(CachedRecommendation.of(RecommendationOutcome.UPSTREAM_ERROR, catalog.version(), startTime));
+        }
+
+        if (recompute) {
+            return askGemini(key, prompt, catalog, startTime);
+        }
+
+        // Second tier: results persisted before the last restart
+        return lookupPersisted(key, catalog).thenCompose(persisted -> {
+            if (persisted.isPresent()) {
+                PersistentRecommendationStore.Stored stored = persisted.get();
+                log.info("Persistent cache HIT - {} in {}ms", stored.tool().getId(), System.currentTimeMillis() - startTime);
+                return CompletableFuture.completedFuture(restored(stored.tool(), catalog.version(), stored.computedAt(), startTime));
             }
 
-            // Extraer solo caracteres permitidos para IDs
-            String cleanId = cleanContent.replaceAll("[^a-zA-Z0-9_-]", "").trim();
-            
-            // Validate that the extracted ID is not empty
-            if (cleanId.isEmpty()) {
-                log.warn("Gemini response does not contain a valid ID: {}", content);
-                return Optional.empty();
+            // A paraphrase of an already answered query reuses its tool without calling Gemini
+            Optional<AiTool> similar = semanticCache.lookup(sanitizedQuery, catalog);
+            if (similar.isPresent()) {
+                log.info("Semantic cache HIT - {} in {}ms", similar.get().getId(), System.currentTimeMillis() - startTime);
+                return CompletableFuture.completedFuture(CachedRecommendation.hit(similar.get(), catalog.version(), startTime));
             }
+            return askGemini(key, prompt, catalog, startTime);
+        });
+    }
+
+    // La lectura JDBC corre en el pool de Gemini, nunca en un hilo del servlet. Con el pool
+    // lleno se salta este nivel: la llamada a Gemini se rechazara igualmente con un 503
+    private CompletableFuture<Optional<PersistentRecommendationStore.Stored>> lookupPersisted(QueryKey key, CatalogSnapshot catalog) {
+        if (!persistentStore.isEnabled()) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> persistentStore.lookup(key.toString(), catalog), geminiExecutor);
+        } catch (RejectedExecutionException e) {
+            log.debug("Gemini executor saturated, skipping persistent cache lookup");
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+    }
 
-            // Validate that the ID exists in the list of available tools
-            // This prevents Gemini from returning injected or invented IDs
-            List<String> validIds = allTools.stream()
-                    .map(AiTool::getId)
-                    .toList();
+    private CompletableFuture<CachedRecommendation> askGemini(QueryKey key, SanitizedPrompt prompt,
+                                                              CatalogSnapshot catalog, long startTime) {
+        String sanitizedQuery = prompt.text();
 
-            if (!validIds.contains(cleanId)) {
-                log.warn("Gemini returned an invalid or non-existent ID: '{}' (Valid IDs: {})",
-                        cleanId, validIds);
-                return Optional.empty();
-            }
+        // Simplified prompt - only the top-ranked candidates
+        int[] candidates = promptBuilder.candidates(catalog, sanitizedQuery);
+        if (candidates.length == 0) {
+            // Solo en local: se cachea poco, el pre-ranking no entiende sinonimos
+            log.info("No candidate tools match query, skipping Gemini call");
+            return CompletableFuture.completedFuture(CachedRecommendation.of(RecommendationOutcome.NO_CANDIDATES, catalog.version(), startTime));
+        }
+        log.debug("Sending query to Gemini API with {} candidate tools", candidates.length);
 
-            log.info("Valid ID found: {}", cleanId);
-            log.info("Total recommendation time: {}ms", System.currentTimeMillis() - startTime);
-            return aiToolRepository.findById(cleanId);
+        // Llamada a la API de Gemini, agrupada con otras consultas concurrentes si es limpia
+        return geminiBatcher.submit(catalog, sanitizedQuery, candidates, !prompt.suspicious())
+                .thenApply(content -> {
+                    long now = System.currentTimeMillis();
+                    if (content == null) {
+                        // Sin respuesta: cuota agotada o fallo de Gemini (timeout, circuito abierto, error)
+                        RecommendationOutcome failure = circuitBreaker.isDailyLimitReached()
+                                ? RecommendationOutcome.BUDGET_EXHAUSTED
+                                : RecommendationOutcome.UPSTREAM_ERROR;
+                        log.warn("Received null response from Gemini ({})", failure);
+                        return CachedRecommendation.of(failure, catalog.version(), now);
+                    }
+                    log.info("Gemini response: {}", content);
 
-        } catch (Exception e) {
-            long errorTime = System.currentTimeMillis();
-            log.error("Error calling Gemini API after {}ms: {}", errorTime - startTime, e.getMessage(), e);
+                    // Si responde null, no hay recomendación
+                    if ("null".equalsIgnoreCase(content.trim())) {
+                        return CachedRecommendation.of(RecommendationOutcome.NO_MATCH, catalog.version(), now);
+                    }
+
+                    // Un id invalido o inventado no es una respuesta definitiva
+                    Optional<AiTool> tool = resolveTool(content, catalog, candidates);
+                    tool.filter(t -> !prompt.suspicious()).ifPresent(t -> {
+                        semanticCache.put(sanitizedQuery, t, catalog.version());
+                        persistentStore.save(key.toString(), catalog, t);
+                    });
+                    log.info("Total recommendation time: {}ms", now - startTime);
+                    return tool.map(t -> CachedRecommendation.hit(t, catalog.version(), now))
+                            .orElseGet(() -> CachedRecommendation.of(RecommendationOutcome.UPSTREAM_ERROR, catalog.version(), now));
+                });
+    }
+
+    private Optional<AiTool> resolveTool(String content, CatalogSnapshot catalog, int[] candidates) {
+        // Validación estricta de la respuesta: extraer solo caracteres permitidos para IDs
+        String cleanId = GeminiBatcher.answerId(content);
+
+        // Validate that the extracted ID is not empty
+        if (cleanId.isEmpty()) {
+            log.warn("Gemini response does not contain a valid ID: {}", content);
             return Optional.empty();
         }
+
+        // Validate that the ID exists in the list of available tools
+        // This prevents Gemini from returning injected or invented IDs
+        Optional<AiTool> tool = catalog.findById(cleanId);
+
+        if (tool.isEmpty()) {
+            log.warn("Gemini returned an invalid or non-existent ID: '{}' (catalog v{}, {} tools)",
+                    cleanId, catalog.version(), catalog.size());
+            return Optional.empty();
+        }
+
+        // Solo vale una herramienta que se ofrecio para esta consulta
+        if (!GeminiBatcher.isCandidate(catalog, cleanId, candidates)) {
+            log.warn("Gemini returned ID '{}' outside the {} candidates of the query", cleanId, candidates.length);
+            return Optional.empty();
+        }
+
+        log.info("Valid ID found: {}", cleanId);
+        return tool;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
     }
 }
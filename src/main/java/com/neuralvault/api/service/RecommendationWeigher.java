@@ -0,0 +1,27 @@
+package com.neuralvault.api.service;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+
+/**
+ * Peso aproximado en bytes de cada entrada del cache de recomendaciones, para acotarlo
+ * por memoria en lugar de por numero de entradas.
+ */
+public class RecommendationWeigher implements Weigher<Object, Object> {
+
+    // Nodo de Caffeine con expiracion por entrada + hueco en la tabla hash
+    private static final int ENTRY_OVERHEAD = 96;
+    private static final int QUERY_KEY_BYTES = 32;
+
+    // Valores de otro tipo no deberian llegar aqui; se pesan de forma conservadora
+    private static final int UNKNOWN_BYTES = 1024;
+
+    /** Peso de una entrada tipica: clave de consulta y recomendacion cacheada. */
+    static final int ENTRY_BYTES = ENTRY_OVERHEAD + QUERY_KEY_BYTES + CachedRecommendation.BYTES;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        int keyBytes = key instanceof QueryKey ? QUERY_KEY_BYTES : UNKNOWN_BYTES;
+        int valueBytes = value instanceof CachedRecommendation ? CachedRecommendation.BYTES : UNKNOWN_BYTES;
+        return ENTRY_OVERHEAD + keyBytes + valueBytes;
+    }
+}
@@ -0,0 +1,75 @@
+package com.neuralvault.api.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight: las llamadas concurrentes con la misma clave comparten el
+ * resultado de la primera en vez de repetir el trabajo.
+ */
+@Slf4j
+public class RequestCoalescer<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Duration timeout;
+
+    private final LongAdder leaderCalls = new LongAdder();
+    private final LongAdder coalescedCalls = new LongAdder();
+    private final LongAdder timedOutCalls = new LongAdder();
+
+    public record Stats(long leaderCalls, long coalescedCalls, long timedOutCalls, int inFlight) {}
+
+    public RequestCoalescer(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Ejecuta {@code loader} si no hay otra llamada en curso para {@code key}.
+     * Si la hay, devuelve una copia de su futuro que falla con {@link TimeoutException}
+     * si no termina dentro del timeout configurado (la llamada original sigue su curso).
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> pending = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, pending);
+
+        if (existing != null) {
+            coalescedCalls.increment();
+            return existing.copy()
+                    .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .whenComplete((value, error) -> {
+                        if (error instanceof TimeoutException) {
+                            timedOutCalls.increment();
+                        }
+                    });
+        }
+
+        leaderCalls.increment();
+        try {
+            loader.get().whenComplete((value, error) -> {
+                inFlight.remove(key, pending);
+                if (error != null) {
+                    pending.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                } else {
+                    pending.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, pending);
+            pending.completeExceptionally(e);
+        }
+        return pending;
+    }
+
+    public Stats stats() {
+        return new Stats(leaderCalls.sum(), coalescedCalls.sum(), timedOutCalls.sum(), inFlight.size());
+    }
+}
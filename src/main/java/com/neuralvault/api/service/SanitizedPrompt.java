@@ -0,0 +1,12 @@
+package com.neuralvault.api.service;
+
+/**
+ * Consulta lista para el prompt y el veredicto de la misma pasada: {@code suspicious} si
+ * contenia marcas de prompt injection (ya eliminadas del texto).
+ */
+public record SanitizedPrompt(String text, boolean suspicious) {
+
+    public boolean isEmpty() {
+        return text.isEmpty();
+    }
+}
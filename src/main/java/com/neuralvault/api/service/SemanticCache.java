@@ -0,0 +1,147 @@
+package com.neuralvault.api.service;
+
+import com.neuralvault.api.entity.AiTool;
+import com.neuralvault.api.event.CatalogRefreshedEvent;
+import com.neuralvault.api.search.EmbeddingProvider;
+import com.neuralvault.api.search.VectorIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache por similitud: si una consulta nueva esta a menos de
+ * {@code recommendation.semantic.max-distance} (distancia coseno) de una ya
+ * respondida, se reutiliza el id de herramienta sin llamar a Gemini.
+ * <p>
+ * Compartir palabras no basta para compartir respuesta: ademas de la distancia se exige
+ * el mismo conjunto de terminos canonicos, o que la herramienta reutilizada este entre los
+ * candidatos BM25 que la consulta nueva enviaria a Gemini.
+ */
+@Slf4j
+@Component
+public class SemanticCache {
+
+    private final EmbeddingProvider embeddingProvider;
+    private final QueryCanonicalizer canonicalizer;
+    private final VectorIndex<Answer> index;
+    private final boolean enabled;
+    private final float minSimilarity;
+    private final long ttlMs;
+    private final int candidateLimit;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public record Stats(long hits, long misses, int entries) {}
+
+    // Herramienta respondida, consulta canonica y version del catalogo con la que se calculo
+    private record Answer(String toolId, String canonicalQuery, long catalogVersion, long createdAt) {}
+
+    public SemanticCache(EmbeddingProvider embeddingProvider,
+                         QueryCanonicalizer canonicalizer,
+                         @Value("${recommendation.semantic.enabled:true}") boolean enabled,
+                         @Value("${recommendation.semantic.max-distance:0.1}") float maxDistance,
+                         @Value("${recommendation.semantic.capacity:4000}") int capacity,
+                         @Value("${recommendation.semantic.ttl-minutes:1440}") long ttlMinutes,
+                         @Value("${recommendation.prerank.top-k:20}") int candidateLimit) {
+        this.embeddingProvider = embeddingProvider;
+        this.canonicalizer = canonicalizer;
+        this.enabled = enabled;
+        this.minSimilarity = 1 - maxDistance;
+        this.ttlMs = TimeUnit.MINUTES.toMillis(ttlMinutes);
+        this.candidateLimit = candidateLimit;
+        this.index = new VectorIndex<>(embeddingProvider.dimensions(), capacity);
+    }
+
+    /**
+     * Solo reutiliza respuestas vigentes cuya herramienta no cambio desde que se calcularon.
+     */
+    public Optional<AiTool> lookup(String query, CatalogSnapshot catalog) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        long now = System.currentTimeMillis();
+        VectorIndex.Match<Answer> match = index.nearest(embeddingProvider.embed(query),
+                answer -> isValid(answer, catalog, now));
+        if (match != null && match.similarity() >= minSimilarity) {
+            Optional<AiTool> tool = catalog.findById(match.payload().toolId());
+            if (tool.isPresent() && sameIntent(query, match.payload(), tool.get(), catalog)) {
+                hits.increment();
+                log.debug("Semantic cache HIT for '{}' -> {} (similarity {})", query, match.payload().toolId(), match.similarity());
+                return tool;
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Una consulta ya presente (misma forma canonica) se reemplaza: un recalculo no deja
+     * la respuesta antigua en el indice.
+     */
+    public void put(String query, AiTool tool, long catalogVersion) {
+        if (!enabled) {
+            return;
+        }
+        float[] vector = embeddingProvider.embed(query);
+        // Consultas sin terminos utiles producen un vector nulo que no aporta nada
+        for (float component : vector) {
+            if (component != 0f) {
+                String canonical = canonicalizer.canonicalize(query);
+                index.addOrReplace(vector,
+                        new Answer(tool.getId(), canonical, catalogVersion, System.currentTimeMillis()),
+                        existing -> existing.canonicalQuery().equals(canonical));
+                return;
+            }
+        }
+    }
+
+    // Las respuestas de herramientas que cambiaron o desaparecieron ya no sirven
+    @EventListener
+    public void onCatalogRefreshed(CatalogRefreshedEvent event) {
+        long now = System.currentTimeMillis();
+        int removed = index.removeIf(answer -> !isValid(answer, event.current(), now));
+        if (removed > 0) {
+            log.info("Catalog v{}: evicted {} semantic cache entries", event.current().version(), removed);
+        }
+    }
+
+    @Scheduled(fixedRate = 3600000)
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        int removed = index.removeIf(answer -> now - answer.createdAt() > ttlMs);
+        if (removed > 0) {
+            log.debug("Purged {} expired semantic cache entries", removed);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), index.size());
+    }
+
+    private boolean isValid(Answer answer, CatalogSnapshot catalog, long now) {
+        return now - answer.createdAt() <= ttlMs
+                && answer.catalogVersion() >= catalog.toolVersion(answer.toolId());
+    }
+
+    private boolean sameIntent(String query, Answer answer, AiTool tool, CatalogSnapshot catalog) {
+        if (answer.canonicalQuery().equals(canonicalizer.canonicalize(query))) {
+            return true;
+        }
+        // La categoria no basta: con tres categorias casi cualquier par coincidiria
+        int ordinal = catalog.ordinalOf(tool.getId());
+        for (int candidate : catalog.rank(query, candidateLimit)) {
+            if (candidate == ordinal) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,75 @@
+package com.neuralvault.api.service;
+
+import com.neuralvault.api.entity.AiTool;
+import com.neuralvault.api.exception.InvalidRequestException;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Seleccion de campos ({@code fields=id,name,icon}) para las vistas de lista: solo se
+ * serializan los campos pedidos, en el orden de la entidad.
+ */
+public final class ToolFields {
+
+    private enum Field {
+        ID(AiTool::getId),
+        NAME(AiTool::getName),
+        SPECIALTY(AiTool::getSpecialty),
+        DESCRIPTION(AiTool::getDescription),
+        PRICING(AiTool::getPricing),
+        URL(AiTool::getUrl),
+        ICON(AiTool::getIcon),
+        CATEGORY(AiTool::getCategory),
+        TAGS(AiTool::getTags);
+
+        private final String json = name().toLowerCase(Locale.ROOT);
+        private final Function<AiTool, Object> getter;
+
+        Field(Function<AiTool, Object> getter) {
+            this.getter = getter;
+        }
+    }
+
+    public static final ToolFields ALL = new ToolFields(EnumSet.allOf(Field.class));
+
+    private final Set<Field> fields;
+
+    private ToolFields(Set<Field> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * @param spec lista separada por comas; vacia o {@code null} equivale a todos los campos
+     */
+    public static ToolFields parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return ALL;
+        }
+        EnumSet<Field> selected = EnumSet.noneOf(Field.class);
+        for (String name : spec.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            try {
+                selected.add(Field.valueOf(trimmed.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidRequestException("Unknown field: " + trimmed);
+            }
+        }
+        return selected.isEmpty() ? ALL : new ToolFields(selected);
+    }
+
+    public Map<String, Object> project(AiTool tool) {
+        Map<String, Object> projected = new LinkedHashMap<>(fields.size() * 2);
+        for (Field field : fields) {
+            projected.put(field.json, field.getter.apply(tool));
+        }
+        return projected;
+    }
+}
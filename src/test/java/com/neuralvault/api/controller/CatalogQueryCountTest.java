@@ -0,0 +1,82 @@
+package com.neuralvault.api.controller;
+
+import com.neuralvault.api.service.CatalogService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Numero de sentencias SQL por peticion de catalogo. Las lecturas salen del snapshot en
+ * memoria y la recarga usa dos consultas planas; si alguna cifra crece, algo volvio a
+ * cargar entidades o colecciones perezosas.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "gemini.api.key=test",
+        "catalog.refresh.delay-ms=3600000",
+        "recommendation.persistent.enabled=false",
+        "recommendation.warmup.enabled=false"
+})
+@AutoConfigureMockMvc
+class CatalogQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void catalogEndpointsRunNoStatements() throws Exception {
+        String id = catalogService.current().get(0).getId();
+
+        mockMvc.perform(get("/api/tools")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/tools").header("Accept-Encoding", "gzip")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/tools/" + id)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/tools/category/ide")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/tools").param("limit", "5").param("fields", "id,name")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/tools/search").param("q", "cu")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/tools/filter").param("category", "IDE")).andExpect(status().isOk());
+
+        MvcResult export = mockMvc.perform(get("/api/tools/export")).andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(export)).andExpect(status().isOk());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @Test
+    void catalogRefreshRunsTwoStatements() {
+        catalogService.refresh();
+
+        // Herramientas y tags, sin importar el tamano del catalogo
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+}
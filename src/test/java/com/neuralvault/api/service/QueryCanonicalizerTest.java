@@ -0,0 +1,36 @@
+package com.neuralvault.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueryCanonicalizerTest {
+
+    private final QueryCanonicalizer canonicalizer = new QueryCanonicalizer("");
+
+    @Test
+    void wordOrderCaseAndStopwordsShareKey() {
+        assertEquals(canonicalizer.canonicalize("IDE para Python"), canonicalizer.canonicalize("python IDE"));
+        assertEquals(canonicalizer.canonicalize("IDE para Python"), canonicalizer.canonicalize("ide para  python!"));
+    }
+
+    @Test
+    void shortLanguageNamesKeepDistinctKeys() {
+        List<String> queries = List.of("IDE", "IDE para C", "IDE para R", "IDE for C#", "IDE for C++", "IDE for F#");
+
+        Set<String> keys = queries.stream().map(canonicalizer::canonicalize).collect(Collectors.toSet());
+
+        assertEquals(queries.size(), keys.size(), keys.toString());
+        assertEquals("c# ide", canonicalizer.canonicalize("IDE for C#"));
+    }
+
+    @Test
+    void editorIsNotAnIde() {
+        assertEquals("editor video", canonicalizer.canonicalize("editor de video"));
+        assertEquals("ide video", canonicalizer.canonicalize("ide video"));
+    }
+}